@@ -0,0 +1,48 @@
+package obpslg;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures Player.getPA(), the innermost step of the simulation, for every combination of outcome sampler and random number generator.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PlateAppearanceBenchmark {
+
+    @Param({"TABLE", "ALIAS", "CUMULATIVE"})
+    public String sampler;
+
+    @Param({"XOSHIRO", "SPLITTABLE", "COUNTER", "JDK"})
+    public String rng;
+
+    private ObpSlgSim.Player player;
+    private RandomSource r;
+
+    @Setup
+    public void setup() {
+	player = ObpSlgSim.eddieCollins();
+	player.setSampler(OutcomeSampler.Kind.valueOf(sampler));
+	r = RandomSource.Kind.valueOf(rng).create(42);
+    }
+
+    @Benchmark
+    public int getPA() {
+	return player.getPA(r);
+    }
+}
@@ -0,0 +1,68 @@
+package obpslg;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the simulation one level at a time: a half-inning, a game and a whole 162-game season.<br>
+ * Only the default sampler and generator are measured unless others are given with -p sampler=... -p rng=...
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SimulationBenchmark {
+
+    @Param({"TABLE"})
+    public String sampler;
+
+    @Param({"XOSHIRO"})
+    public String rng;
+
+    private ObpSlgSim.Team highObp, highSlg;
+    private OutcomeSampler.Kind samplerKind;
+    private RandomSource r;
+    private final ObpSlgSim.GameState game = new ObpSlgSim.GameState();
+
+    @Setup
+    public void setup() {
+	samplerKind = OutcomeSampler.Kind.valueOf(sampler);
+	ObpSlgSim.Player p1 = ObpSlgSim.eddieCollins(), p2 = ObpSlgSim.rafaelDevers();
+	p1.setSampler(samplerKind);
+	p2.setSampler(samplerKind);
+	highObp = ObpSlgSim.buildTeam(p1, "High OBP");
+	highSlg = ObpSlgSim.buildTeam(p2, "High SLG");
+	r = RandomSource.Kind.valueOf(rng).create(42);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int simInning() {
+	ObpSlgSim.simInning(0, highObp, false, 0, r, null, game);
+	return game.runsScored;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int playGame() {
+	return ObpSlgSim.playGame(highObp, highSlg, r, null, game).homeRuns;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int season() {
+	return ObpSlgSim.simSeason(1, r, samplerKind).highObp.wins;
+    }
+}
@@ -0,0 +1,66 @@
+package obpslg;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the Team stat getters used for the end-of-season report, on a team that has just played a full season.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TeamStatsBenchmark {
+
+    private ObpSlgSim.Team highObp, highSlg;
+
+    @Setup
+    public void setup() {
+	highObp = ObpSlgSim.buildTeam(ObpSlgSim.eddieCollins(), "High OBP");
+	highSlg = ObpSlgSim.buildTeam(ObpSlgSim.rafaelDevers(), "High SLG");
+	RandomSource r = RandomSource.Kind.XOSHIRO.create(42);
+	ObpSlgSim.GameState game = new ObpSlgSim.GameState();
+	for(int i = 0; i < 162; i++) {
+	    ObpSlgSim.playGame(highObp, highSlg, r, null, game);
+	}
+    }
+
+    @Benchmark
+    public double getBA() {
+	return highObp.getBA();
+    }
+
+    @Benchmark
+    public double getOBP() {
+	return highObp.getOBP();
+    }
+
+    @Benchmark
+    public double getSLG() {
+	return highObp.getSLG();
+    }
+
+    @Benchmark
+    public int getTotalBases() {
+	return highObp.getTotalBases();
+    }
+
+    @Benchmark
+    public double seasonReport() {
+	//everything the end-of-season report reads, for both teams
+	ObpSlgSim.TeamSeason a = new ObpSlgSim.TeamSeason(highObp), b = new ObpSlgSim.TeamSeason(highSlg);
+	return a.getOPS() + b.getOPS();
+    }
+}
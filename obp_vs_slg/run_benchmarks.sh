@@ -0,0 +1,10 @@
+#!/bin/bash
+
+# Runs the JMH benchmarks with the GC profiler, so allocation rates show up next to the timings.
+# Any arguments are passed on to JMH, e.g. a benchmark name pattern or -p rng=JDK
+# Needs Maven to build the benchmark jar the first time.
+
+if [ ! -f benchmarks/target/benchmarks.jar ]; then
+    mvn -B -q package
+fi
+java -jar benchmarks/target/benchmarks.jar -prof gc "$@"
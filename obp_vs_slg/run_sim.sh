@@ -2,33 +2,35 @@
 
 # First determine whether it needs to be recompiled
 
+# the sources are compiled the same place Maven puts them, so either way of building works
+classes=simulator/target/classes
+sources=simulator/src/main/java/obpslg
+
 needs_compiling=0
-if [ -f ObpSlgSim.class ]; then
-    # when the source code was last edited
-    source_date=$(date -r ObpSlgSim.java +%Y%j%H%M%S)
+if [ -f $classes/obpslg/ObpSlgSim.class ]; then
     # when it was last compiled
-    compile_date=$(date -r ObpSlgSim.class +%Y%j%H%M%S)
-    # now do the comparison
-    if [[ $compile_date < $source_date ]]; then
-	needs_compiling=1
-    fi
+    compile_date=$(date -r $classes/obpslg/ObpSlgSim.class +%Y%j%H%M%S)
+    # compare with when each source file was last edited
+    for source in $sources/*.java; do
+	source_date=$(date -r "$source" +%Y%j%H%M%S)
+	if [[ $compile_date < $source_date ]]; then
+	    needs_compiling=1
+	fi
+    done
 else
     needs_compiling=1
 fi
 # now do the compiling if necessary
 if [ $needs_compiling -eq 1 ]; then
-    javac ObpSlgSim.java
+    javac -d $classes $sources/*.java
 fi
 
 # now run it however many times the user wants
 # if not specified, do 100
+# all seasons run in a single JVM; any further arguments (e.g. --format csv) are passed along
 num_seasons=100
 if [[ $# -gt 0 ]]; then
     num_seasons=$1
+    shift
 fi
-for n in $(seq 1 $num_seasons)
-do
-    echo "Season ${n}:"
-    java ObpSlgSim
-    echo ""
-done
+java -cp $classes obpslg.ObpSlgSim "$num_seasons" "$@"
@@ -0,0 +1,272 @@
+package obpslg;
+
+/**
+ * The 24 base-out states of a half-inning and precomputed transitions between them.<br>
+ * A state is outs * 8 + bases, where bit 0 of bases is a runner on first, bit 1 a runner on second and bit 2 a runner on third.
+ * INNING_OVER stands for every state with three outs.<br>
+ * Each plate appearance outcome is first resolved into an event, which settles the double play, productive out and infield hit sub-rolls.
+ * The event and the state then index NEXT_STATE and RUNS, so simulating a plate appearance is two table lookups.
+ * The tables are built once from transition(), which is the only place the baserunning rules are written down.
+ */
+final class BaseOutStates {
+
+    private BaseOutStates() {}
+
+    public static final int STATES = 24;
+    public static final int INNING_OVER = 24;
+    public static final int FIRST = 1, SECOND = 2, THIRD = 4;
+
+    //The events a plate appearance can turn into once its sub-rolls are settled
+    public static final int STRIKEOUT = 0;
+    public static final int OUT_IN_PLAY = 1;
+    public static final int PRODUCTIVE_OUT = 2;
+    public static final int DOUBLE_PLAY = 3;
+    public static final int WALK = 4;
+    public static final int INFIELD_SINGLE = 5;
+    public static final int OUTFIELD_SINGLE = 6;
+    public static final int DOUBLE = 7;
+    public static final int TRIPLE = 8;
+    public static final int HOME_RUN = 9;
+    public static final int EVENTS = 10;
+
+    //NEXT_STATE[event * STATES + state] is the state after the event, RUNS[event * STATES + state] the runs it scores
+    public static final byte[] NEXT_STATE = new byte[EVENTS * STATES];
+    public static final byte[] RUNS = new byte[EVENTS * STATES];
+
+    static {
+	for(int event = 0; event < EVENTS; event++) {
+	    for(int state = 0; state < STATES; state++) {
+		int[] result = transition(event, state);
+		NEXT_STATE[event * STATES + state] = (byte)result[0];
+		RUNS[event * STATES + state] = (byte)result[1];
+	    }
+	}
+    }
+
+    /**
+     * Applies an event to a state by following the baserunning rules of the simulator directly.
+     * @param event The event.
+     * @param state The state before the event.
+     * @return The state after the event and the number of runs scored on it.
+     */
+    private static int[] transition(int event, int state) {
+	int outs = state / 8;
+	boolean first = (state & FIRST) != 0, second = (state & SECOND) != 0, third = (state & THIRD) != 0;
+	int runs = 0;
+	switch(event) {
+	case STRIKEOUT:
+	case OUT_IN_PLAY:
+	    outs++;
+	    break;
+	case PRODUCTIVE_OUT:
+	    //every runner moves up a base
+	    if(third) runs++;
+	    third = second;
+	    second = first;
+	    first = false;
+	    outs++;
+	    break;
+	case DOUBLE_PLAY:
+	    //the batter and the runner from first are out; with nobody out the other runners move up a base
+	    outs += 2;
+	    if(outs < 3) {
+		if(third) runs++;
+		third = second;
+		second = false;
+		first = false;
+	    }
+	    break;
+	case WALK:
+	    //only forced runners move up
+	    if(first) {
+		if(second) {
+		    if(third) runs++;
+		    third = true;
+		}
+		second = true;
+	    }
+	    first = true;
+	    break;
+	case INFIELD_SINGLE:
+	    if(third) runs++;
+	    third = second;
+	    second = first;
+	    first = true;
+	    break;
+	case OUTFIELD_SINGLE:
+	    //the runner on second scores as well
+	    if(third) runs++;
+	    if(second) runs++;
+	    third = false;
+	    second = first;
+	    first = true;
+	    break;
+	case DOUBLE:
+	    if(third) runs++;
+	    if(second) runs++;
+	    third = first;
+	    second = true;
+	    first = false;
+	    break;
+	case TRIPLE:
+	    if(third) runs++;
+	    if(second) runs++;
+	    if(first) runs++;
+	    third = true;
+	    second = false;
+	    first = false;
+	    break;
+	case HOME_RUN:
+	    if(third) runs++;
+	    if(second) runs++;
+	    if(first) runs++;
+	    runs++;
+	    third = false;
+	    second = false;
+	    first = false;
+	    break;
+	default:
+	    throw new RuntimeException("ERROR: Unknown event " + event);
+	}
+	if(outs >= 3) {
+	    return new int[]{INNING_OVER, runs};
+	}
+	return new int[]{outs * 8 + (first ? FIRST : 0) + (second ? SECOND : 0) + (third ? THIRD : 0), runs};
+    }
+
+    /**
+     * Settles the sub-rolls of a plate appearance outcome.<br>
+     * An out in play with fewer than two outs rolls once for a double play (only with a runner on first) or a productive out.
+     * A single rolls once for whether it stayed in the infield, unless the runner from third is already enough to win the game.
+     * @param outcome The outcome code from Player.getPA().
+     * @param state The state before the plate appearance.
+     * @param r The source of pseudorandom numbers for the sub-rolls.
+     * @param runFromThirdWins True iff one more run would end the game on a walk-off.
+     * @return The event the plate appearance turned into.
+     */
+    public static int resolve(int outcome, int state, RandomSource r, boolean runFromThirdWins) {
+	switch(outcome) {
+	case 0:
+	    return STRIKEOUT;
+	case 1:
+	    if(state >= 16) {
+		return OUT_IN_PLAY;
+	    }
+	    double prodOutRoll = r.nextDouble();
+	    if((state & FIRST) != 0) {
+		if(prodOutRoll < ObpSlgSim.doublePlayRatio) {
+		    return DOUBLE_PLAY;
+		}
+		return (prodOutRoll < ObpSlgSim.doublePlayRatio + ObpSlgSim.productiveOutRatio) ? PRODUCTIVE_OUT : OUT_IN_PLAY;
+	    }
+	    return (prodOutRoll < ObpSlgSim.productiveOutRatio) ? PRODUCTIVE_OUT : OUT_IN_PLAY;
+	case 2:
+	    return WALK;
+	case 3:
+	    if(runFromThirdWins && (state & THIRD) != 0) {
+		//the game is over before anyone needs to know where the ball went
+		return INFIELD_SINGLE;
+	    }
+	    return (r.nextDouble() < ObpSlgSim.infieldHitRatio) ? INFIELD_SINGLE : OUTFIELD_SINGLE;
+	case 4:
+	    return DOUBLE;
+	case 5:
+	    return TRIPLE;
+	case 6:
+	    return HOME_RUN;
+	default: //should never happen
+	    throw new RuntimeException("ERROR: Unknown PA outcome " + outcome);
+	}
+    }
+
+    /**
+     * The probabilities behind resolve(): lists the events a plate appearance outcome can turn into, and how likely each one is.
+     * @param outcome The outcome code from Player.getPA().
+     * @param state The state before the plate appearance.
+     * @param runFromThirdWins True iff one more run would end the game on a walk-off.
+     * @param events Filled with the possible events. Must have room for 3.
+     * @param probs Filled with the probability of each event, in the same order.
+     * @return How many events were filled in.
+     */
+    public static int eventProbabilities(int outcome, int state, boolean runFromThirdWins, int[] events, double[] probs) {
+	switch(outcome) {
+	case 1:
+	    if(state >= 16) {
+		break;
+	    }
+	    if((state & FIRST) != 0) {
+		events[0] = DOUBLE_PLAY;
+		probs[0] = ObpSlgSim.doublePlayRatio;
+		events[1] = PRODUCTIVE_OUT;
+		probs[1] = ObpSlgSim.productiveOutRatio;
+		events[2] = OUT_IN_PLAY;
+		probs[2] = 1 - ObpSlgSim.doublePlayRatio - ObpSlgSim.productiveOutRatio;
+		return 3;
+	    }
+	    events[0] = PRODUCTIVE_OUT;
+	    probs[0] = ObpSlgSim.productiveOutRatio;
+	    events[1] = OUT_IN_PLAY;
+	    probs[1] = 1 - ObpSlgSim.productiveOutRatio;
+	    return 2;
+	case 3:
+	    if(runFromThirdWins && (state & THIRD) != 0) {
+		break;
+	    }
+	    events[0] = INFIELD_SINGLE;
+	    probs[0] = ObpSlgSim.infieldHitRatio;
+	    events[1] = OUTFIELD_SINGLE;
+	    probs[1] = 1 - ObpSlgSim.infieldHitRatio;
+	    return 2;
+	default:
+	    break;
+	}
+	//no sub-roll, so the event is certain; resolve() doesn't draw anything in these cases
+	events[0] = resolve(outcome, state, null, runFromThirdWins);
+	probs[0] = 1;
+	return 1;
+    }
+
+    /**
+     * @param state A state.
+     * @return The number of outs in the state.
+     */
+    public static int outs(int state) {
+	return state / 8;
+    }
+
+    /**
+     * @param state A state.
+     * @return An English description of where the runners are.
+     */
+    public static String describeBases(int state) {
+	switch(state & 7) {
+	case FIRST | SECOND | THIRD:
+	    return "Bases loaded";
+	case FIRST | SECOND:
+	    return "Runners at first and second";
+	case FIRST | THIRD:
+	    return "Runners at first and third";
+	case FIRST:
+	    return "Runner at first";
+	case SECOND | THIRD:
+	    return "Runners at second and third";
+	case SECOND:
+	    return "Runner at second";
+	case THIRD:
+	    return "Runner at third";
+	default:
+	    return "Bases empty";
+	}
+    }
+
+    private static final String[] EVENT_NAMES = {"Strikeout.", "Out in play.", "Productive out.", "Grounds into double play.", "Walk or hit-by-pitch.",
+						 "Infield single.", "Single.", "Double.", "Triple.", "Home run."};
+
+    /**
+     * @param event An event.
+     * @return An English description of the event.
+     */
+    public static String describeEvent(int event) {
+	return EVENT_NAMES[event];
+    }
+}
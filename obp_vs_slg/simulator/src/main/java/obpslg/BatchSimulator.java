@@ -0,0 +1,305 @@
+package obpslg;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Simulates many seasons of one matchup in lockstep, one season per lane, with all of the game state in primitive arrays.<br>
+ * Every step draws one random number for each lane from its own xoshiro256** generator (the generators are advanced together as a block,
+ * which the Vector API can do several lanes at a time) and then plays one plate appearance in every lane.
+ * A plate appearance is a single draw: each batter's outcome probabilities and the double play, productive out and infield hit sub-rolls
+ * are combined ahead of time into one table of event probabilities per base-out state, so the event comes straight from the draw
+ * and NEXT_STATE and RUNS do the rest. The events have exactly the distribution simulating the sub-rolls one by one gives,
+ * but the random numbers are used differently, so a seed gives different seasons than the per-object engine does.
+ * Each season only depends on its own seed, though, so the results don't depend on how many lanes or threads there are.
+ */
+class BatchSimulator {
+
+    //how many seasons a batch plays at once by default
+    public static final int DEFAULT_LANES = 64;
+    private static final int LINEUP = 9;
+    //the outcome code of Player.getPA() that each event comes from
+    private static final int[] OUTCOME_OF_EVENT = {0, 1, 1, 1, 2, 3, 3, 4, 5, 6};
+    private static final int[] BASES = {0, 0, 0, 1, 2, 3, 4};
+    private static final int[] AT_BAT = {1, 1, 0, 1, 1, 1, 1};
+    private static final int[] ON_BASE = {0, 0, 1, 1, 1, 1, 1};
+    private static final int[] NEXT_BATTER = {1, 2, 3, 4, 5, 6, 7, 8, 0};
+
+    /**
+     * Advances one xoshiro256** generator per lane, with the state of lane i in s0[i] through s3[i].
+     */
+    interface RandomBlock {
+	/**
+	 * @param out Filled with the next number of each lane's generator.
+	 * @param lanes How many lanes to advance.
+	 */
+	void next(long[] s0, long[] s1, long[] s2, long[] s3, long[] out, int lanes);
+    }
+
+    //A plain loop over the lanes, with each lane's state copied into locals so the JIT needn't worry that the arrays overlap
+    static final RandomBlock SCALAR_BLOCK = (s0, s1, s2, s3, out, lanes) -> {
+	for(int i = 0; i < lanes; i++) {
+	    long a = s0[i], b = s1[i], c = s2[i], d = s3[i];
+	    out[i] = Long.rotateLeft(b * 5, 7) * 9;
+	    long t = b << 17;
+	    c ^= a;
+	    d ^= b;
+	    b ^= c;
+	    a ^= d;
+	    c ^= t;
+	    s0[i] = a;
+	    s1[i] = b;
+	    s2[i] = c;
+	    s3[i] = Long.rotateLeft(d, 45);
+	}
+    };
+
+    /**
+     * @return The Vector API version of the block if it was compiled (with the vector profile) and the JVM has jdk.incubator.vector, else the plain loop
+     */
+    static RandomBlock bestBlock() {
+	try {
+	    return (RandomBlock)Class.forName("obpslg.VectorRandomBlock").getDeclaredConstructor().newInstance();
+	}
+	catch(ReflectiveOperationException | LinkageError e) {
+	    return SCALAR_BLOCK;
+	}
+    }
+
+    //the row of the event tables for [team][batter][runFromThirdWins][state]; rows with the same probabilities are shared, which keeps the tables small
+    private final int[] rowOf = new int[2 * LINEUP * 2 * BaseOutStates.STATES];
+    //Walker alias tables, a column per event in each row: a draw picks a column, then the column's event if the rest of the draw is under its threshold (out of 2^32), else its alias
+    private long[] aliasThreshold;
+    private byte[] alias;
+    private final String[] names;
+    private final long masterSeed;
+    private final RandomBlock block;
+
+    /**
+     * @param highObp The player the first team is made of.
+     * @param highObpName The name of the first team.
+     * @param highSlg The player the second team is made of.
+     * @param highSlgName The name of the second team.
+     * @param masterSeedIn The seed every season's seed is derived from, as with the per-object engine.
+     * @param blockIn How the lanes' generators are advanced.
+     */
+    public BatchSimulator(ObpSlgSim.Player highObp, String highObpName, ObpSlgSim.Player highSlg, String highSlgName, long masterSeedIn, RandomBlock blockIn) {
+	names = new String[]{highObpName, highSlgName};
+	masterSeed = masterSeedIn;
+	block = blockIn;
+	ObpSlgSim.Player[] players = {highObp, highSlg};
+	Map<String, Integer> rows = new HashMap<String, Integer>();
+	List<double[]> rowProbs = new ArrayList<double[]>();
+	int[] events = new int[3];
+	double[] probs = new double[3];
+	for(int team = 0; team < 2; team++) {
+	    //every lineup is nine copies of one player, but the tables have a row per batter so that needn't stay true
+	    double[] outcomes = players[team].getOutcomeProbabilities();
+	    for(int batter = 0; batter < LINEUP; batter++) {
+		for(int flag = 0; flag < 2; flag++) {
+		    for(int state = 0; state < BaseOutStates.STATES; state++) {
+			double[] eventProbs = new double[BaseOutStates.EVENTS];
+			for(int outcome = 0; outcome < outcomes.length; outcome++) {
+			    int n = BaseOutStates.eventProbabilities(outcome, state, flag == 1, events, probs);
+			    for(int k = 0; k < n; k++) {
+				eventProbs[events[k]] += outcomes[outcome] * probs[k];
+			    }
+			}
+			Integer row = rows.get(Arrays.toString(eventProbs));
+			if(row == null) {
+			    row = rowProbs.size();
+			    rows.put(Arrays.toString(eventProbs), row);
+			    rowProbs.add(eventProbs);
+			}
+			rowOf[((team * LINEUP + batter) * 2 + flag) * BaseOutStates.STATES + state] = row;
+		    }
+		}
+	    }
+	}
+	aliasThreshold = new long[rowProbs.size() * BaseOutStates.EVENTS];
+	alias = new byte[rowProbs.size() * BaseOutStates.EVENTS];
+	for(int row = 0; row < rowProbs.size(); row++) {
+	    buildAlias(rowProbs.get(row), row * BaseOutStates.EVENTS);
+	}
+    }
+
+    //Vose's method: columns under their share are topped up by one over its share, which then counts as under or over by what's left
+    private void buildAlias(double[] probs, int base) {
+	int n = probs.length;
+	double[] scaled = new double[n];
+	int[] small = new int[n], large = new int[n];
+	int smalls = 0, larges = 0;
+	for(int k = 0; k < n; k++) {
+	    scaled[k] = probs[k] * n;
+	    if(scaled[k] < 1) {
+		small[smalls++] = k;
+	    }
+	    else {
+		large[larges++] = k;
+	    }
+	}
+	while(smalls > 0 && larges > 0) {
+	    int under = small[--smalls], over = large[--larges];
+	    aliasThreshold[base + under] = (long)(scaled[under] * 0x1.0p32);
+	    alias[base + under] = (byte)over;
+	    scaled[over] -= 1 - scaled[under];
+	    if(scaled[over] < 1) {
+		small[smalls++] = over;
+	    }
+	    else {
+		large[larges++] = over;
+	    }
+	}
+	//whatever is left is a whole column up to rounding error
+	while(larges > 0) {
+	    int k = large[--larges];
+	    aliasThreshold[base + k] = 1L << 32;
+	    alias[base + k] = (byte)k;
+	}
+	while(smalls > 0) {
+	    int k = small[--smalls];
+	    aliasThreshold[base + k] = 1L << 32;
+	    alias[base + k] = (byte)k;
+	}
+    }
+
+    /**
+     * Simulates a run of consecutive seasons, one per lane.
+     * @param first The number of the first season.
+     * @param count How many seasons to simulate.
+     * @return The results, in season order.
+     */
+    public ObpSlgSim.SeasonResult[] simSeasons(int first, int count) {
+	long[] s0 = new long[count], s1 = new long[count], s2 = new long[count], s3 = new long[count], draws = new long[count];
+	for(int i = 0; i < count; i++) {
+	    //seeded exactly like RandomSource.Xoshiro256StarStar
+	    long seed = ObpSlgSim.seasonSeed(masterSeed, first + i);
+	    s0[i] = RandomSource.mix64(seed += 0x9E3779B97F4A7C15L);
+	    s1[i] = RandomSource.mix64(seed += 0x9E3779B97F4A7C15L);
+	    s2[i] = RandomSource.mix64(seed += 0x9E3779B97F4A7C15L);
+	    s3[i] = RandomSource.mix64(seed + 0x9E3779B97F4A7C15L);
+	}
+	int[] state = new int[count], half = new int[count], inning = new int[count], game = new int[count];
+	//per lane and side (away, home) for the current game
+	int[] gameRuns = new int[2 * count];
+	//per lane and team (high OBP, high SLG)
+	int[] batter = new int[2 * count], wins = new int[2 * count], seasonRuns = new int[2 * count];
+	int[] outcomeCounts = new int[2 * 7 * count];
+	Arrays.fill(inning, 1);
+	int active = count;
+	//for Metrics; plate appearances are counted from outcomeCounts at the end
+	long innings = 0, extraInningGames = 0, walkOffs = 0, doublePlays = 0;
+	long[] inningsHistogram = new long[Metrics.MAX_INNINGS + 1], extraInningRuns = new long[Metrics.MAX_EXTRA_INNING_RUNS + 1];
+	//per lane, the runs of the current half-inning
+	int[] halfRuns = new int[count];
+	while(active > 0) {
+	    block.next(s0, s1, s2, s3, draws, count);
+	    for(int i = 0; i < count; i++) {
+		if(game[i] == League.SEASON_GAMES) {
+		    continue;
+		}
+		//the teams switch home and away every three games, the high OBP team starting on the road
+		//(neighboring lanes are in unrelated spots of their games, so a branch on any of this would be a coin flip;
+		//everything up to the end of a game is done with arithmetic on locals instead)
+		int h = half[i], st = state[i], inn = inning[i];
+		int away = (game[i] / 3) & 1;
+		int batting = away ^ h;
+		int awayRuns = gameRuns[2 * i], homeRuns = gameRuns[2 * i + 1];
+		//1 iff the home team is batting in the ninth inning or later, and iff one more run would win it
+		int late = h & ((8 - inn) >>> 31);
+		int flag = late & ((awayRuns - homeRuns - 1) >>> 31);
+		int slot = batter[2 * i + batting];
+		int row = rowOf[((batting * LINEUP + slot) * 2 + flag) * BaseOutStates.STATES + st] * BaseOutStates.EVENTS;
+		long draw = draws[i];
+		int column = row + (int)(((draw >>> 32) * BaseOutStates.EVENTS) >>> 32);
+		//all ones iff the rest of the draw is under the column's threshold
+		int under = (int)(((draw & 0xFFFFFFFFL) - aliasThreshold[column]) >> 63);
+		int event = ((column - row) & under) | (alias[column] & ~under);
+		outcomeCounts[(2 * i + batting) * 7 + OUTCOME_OF_EVENT[event]]++;
+		doublePlays += ((event ^ BaseOutStates.DOUBLE_PLAY) - 1) >>> 31;
+		int transition = event * BaseOutStates.STATES + st;
+		int scored = BaseOutStates.RUNS[transition];
+		awayRuns += scored & (h - 1);
+		homeRuns += scored & -h;
+		int next = BaseOutStates.NEXT_STATE[transition];
+		batter[2 * i + batting] = NEXT_BATTER[slot];
+		//the half-inning ends on a walk-off or the third out; the game ends on a walk-off,
+		//or after a half of the ninth or later with the home team ahead (top) or anyone ahead (bottom)
+		int walkOff = late & ((awayRuns - homeRuns) >>> 31);
+		int halfOver = walkOff | ((BaseOutStates.STATES - 1 - next) >>> 31);
+		int homeAhead = (awayRuns - homeRuns) >>> 31, notTied = ((awayRuns - homeRuns) | (homeRuns - awayRuns)) >>> 31;
+		int over = walkOff | (halfOver & ((8 - inn) >>> 31) & (((1 - h) & homeAhead) | (h & notTied)));
+		//a finished extra half-inning counts its runs; any other PA adds 0 to some bucket
+		int runs = halfRuns[i] + scored;
+		extraInningRuns[Math.min(runs, Metrics.MAX_EXTRA_INNING_RUNS)] += halfOver & ((9 - inn) >>> 31);
+		halfRuns[i] = runs & (halfOver - 1);
+		gameRuns[2 * i] = awayRuns;
+		gameRuns[2 * i + 1] = homeRuns;
+		half[i] = h ^ halfOver;
+		inning[i] = inn + (h & halfOver);
+		state[i] = next & (halfOver - 1);
+		if(over != 0) {
+		    innings += inn;
+		    inningsHistogram[Math.min(inn, Metrics.MAX_INNINGS)]++;
+		    extraInningGames += (9 - inn) >>> 31;
+		    walkOffs += walkOff;
+		    int home = 1 - away;
+		    wins[2 * i + ((awayRuns > homeRuns) ? away : home)]++;
+		    seasonRuns[2 * i + away] += awayRuns;
+		    seasonRuns[2 * i + home] += homeRuns;
+		    gameRuns[2 * i] = 0;
+		    gameRuns[2 * i + 1] = 0;
+		    batter[2 * i] = 0;
+		    batter[2 * i + 1] = 0;
+		    state[i] = 0;
+		    half[i] = 0;
+		    inning[i] = 1;
+		    if(++game[i] == League.SEASON_GAMES) {
+			active--;
+		    }
+		}
+	    }
+	}
+	ObpSlgSim.GameState totals = ObpSlgSim.gameState();
+	totals.seasons += count;
+	totals.games += (long)League.SEASON_GAMES * count;
+	for(int n : outcomeCounts) {
+	    totals.plateAppearances += n;
+	}
+	totals.inningsPlayed += innings;
+	totals.extraInningGames += extraInningGames;
+	totals.walkOffs += walkOffs;
+	totals.doublePlays += doublePlays;
+	for(int n = 0; n <= Metrics.MAX_INNINGS; n++) {
+	    totals.inningsHistogram[n] += inningsHistogram[n];
+	}
+	for(int n = 0; n <= Metrics.MAX_EXTRA_INNING_RUNS; n++) {
+	    totals.extraInningRuns[n] += extraInningRuns[n];
+	}
+	ObpSlgSim.SeasonResult[] results = new ObpSlgSim.SeasonResult[count];
+	for(int i = 0; i < count; i++) {
+	    results[i] = new ObpSlgSim.SeasonResult(first + i, teamSeason(i, 0, wins, seasonRuns, outcomeCounts), teamSeason(i, 1, wins, seasonRuns, outcomeCounts));
+	}
+	return results;
+    }
+
+    //one team's season in one lane, rounded the way Team rounds it
+    private ObpSlgSim.TeamSeason teamSeason(int lane, int team, int[] wins, int[] seasonRuns, int[] outcomeCounts) {
+	int pas = 0, abs = 0, hits = 0, timesOnBase = 0, totalBases = 0;
+	for(int outcome = 0; outcome < 7; outcome++) {
+	    int n = outcomeCounts[(2 * lane + team) * 7 + outcome];
+	    pas += n;
+	    abs += AT_BAT[outcome] * n;
+	    timesOnBase += ON_BASE[outcome] * n;
+	    hits += AT_BAT[outcome] * ON_BASE[outcome] * n;
+	    totalBases += BASES[outcome] * n;
+	}
+	int w = wins[2 * lane + team];
+	return new ObpSlgSim.TeamSeason(names[team], w, League.SEASON_GAMES - w, seasonRuns[2 * lane + team],
+					(double)Math.round(1000 * (double)hits/abs)/1000, (double)Math.round(1000 * (double)timesOnBase/pas)/1000,
+					(double)Math.round(1000 * (double)totalBases/abs)/1000);
+    }
+}
@@ -0,0 +1,272 @@
+package obpslg;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads batting lines from a Lahman-style batting CSV (one row per player, season and stint, with a header row) and turns them into players.<br>
+ * The file is memory-mapped and parsed byte by byte, without making a String for each line or field: the only objects made per row are
+ * the player's key and, the first time a player is seen, the array their totals are added up in. That keeps loading the whole table fast.
+ * Fields can't be quoted, which the Lahman files never need. Empty fields, like HBP and SF in early seasons, count as 0,
+ * but any other stat that isn't a whole number (a negative, a decimal, a quote) stops the load, since the totals would silently come out wrong.
+ */
+class BattingTable {
+
+    //the columns the totals are kept in; the Lahman names are the header names to look for
+    static final String[] COLUMNS = {"AB", "H", "2B", "3B", "HR", "BB", "SO", "HBP", "SH", "SF"};
+    private static final int AB = 0, H = 1, DOUBLES = 2, TRIPLES = 3, HR = 4, BB = 5, SO = 6, HBP = 7, SH = 8, SF = 9;
+    //the first seven columns have to be in the file, the rest are 0 if they aren't
+    private static final int REQUIRED_COLUMNS = 7;
+    //how much of the file is mapped at once; a mapping can't be bigger than 2 GB
+    private static final int CHUNK_SIZE = 1 << 30;
+
+    private final Map<String, int[]> totals = new LinkedHashMap<String, int[]>();
+    private final boolean bySeason;
+    private long rows;
+    //where each column is in a row, by field number
+    private int idField = -1, yearField = -1;
+    private int[] columnOfField;
+    private final byte[] scratch = new byte[64];
+    private final int[] rowStats = new int[COLUMNS.length];
+
+    /**
+     * @param bySeasonIn True to keep every player's seasons apart, false to add them up into careers.
+     */
+    public BattingTable(boolean bySeasonIn) {
+	bySeason = bySeasonIn;
+    }
+
+    /**
+     * Adds every row of a batting file to the totals.
+     * @param file The CSV file to read.
+     * @return This table.
+     */
+    public BattingTable load(String file) throws IOException {
+	try(RandomAccessFile in = new RandomAccessFile(file, "r");
+	    FileChannel channel = in.getChannel()) {
+	    long size = channel.size(), position = 0;
+	    boolean header = true;
+	    while(position < size) {
+		long length = Math.min(CHUNK_SIZE, size - position);
+		MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+		boolean last = position + length == size;
+		int start = 0;
+		for(int end = 0; end < length; end++) {
+		    if(buffer.get(end) == '\n') {
+			if(header) {
+			    readHeader(buffer, start, end);
+			    header = false;
+			}
+			else {
+			    readRow(buffer, start, end);
+			}
+			start = end + 1;
+		    }
+		}
+		if(last && start < length) {
+		    //the last line doesn't end with a newline
+		    if(header) {
+			readHeader(buffer, start, (int)length);
+			header = false;
+		    }
+		    else {
+			readRow(buffer, start, (int)length);
+		    }
+		    start = (int)length;
+		}
+		if(start == 0 && !last) {
+		    throw new IOException("A line in " + file + " is longer than " + CHUNK_SIZE + " bytes");
+		}
+		//the next mapping starts with the line this one cut off
+		position += start;
+	    }
+	}
+	return this;
+    }
+
+    private void readHeader(MappedByteBuffer buffer, int start, int end) throws IOException {
+	if(end - start >= 3 && buffer.get(start) == (byte)0xEF && buffer.get(start + 1) == (byte)0xBB && buffer.get(start + 2) == (byte)0xBF) {
+	    //skip the UTF-8 byte order mark spreadsheets put at the start, or the first column's name won't match
+	    start += 3;
+	}
+	String[] names = new String(bytes(buffer, start, end), StandardCharsets.US_ASCII).trim().split(",");
+	columnOfField = new int[names.length];
+	boolean[] found = new boolean[COLUMNS.length];
+	for(int field = 0; field < names.length; field++) {
+	    String name = names[field].trim();
+	    columnOfField[field] = -1;
+	    if(name.equals("playerID")) {
+		idField = field;
+	    }
+	    else if(name.equals("yearID")) {
+		yearField = field;
+	    }
+	    for(int column = 0; column < COLUMNS.length; column++) {
+		if(COLUMNS[column].equals(name)) {
+		    columnOfField[field] = column;
+		    found[column] = true;
+		}
+	    }
+	}
+	for(int column = 0; column < REQUIRED_COLUMNS; column++) {
+	    if(!found[column]) {
+		throw new IOException("The batting file has no " + COLUMNS[column] + " column");
+	    }
+	}
+	if(idField < 0 || (bySeason && yearField < 0)) {
+	    throw new IOException("The batting file needs a playerID column" + (bySeason ? " and a yearID column" : ""));
+	}
+    }
+
+    //a row as text, for an error message
+    private static String line(MappedByteBuffer buffer, int start, int end) {
+	return new String(bytes(buffer, start, end), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(MappedByteBuffer buffer, int start, int end) {
+	byte[] bytes = new byte[end - start];
+	for(int i = start; i < end; i++) {
+	    bytes[i - start] = buffer.get(i);
+	}
+	return bytes;
+    }
+
+    private void readRow(MappedByteBuffer buffer, int start, int end) throws IOException {
+	if(end > start && buffer.get(end - 1) == '\r') {
+	    end--;
+	}
+	if(end == start) {
+	    return;
+	}
+	rows++;
+	int[] stats = rowStats;
+	Arrays.fill(stats, 0);
+	int field = 0, value = 0, idLength = 0, year = 0;
+	for(int i = start; i <= end; i++) {
+	    byte b = (i < end) ? buffer.get(i) : (byte)',';
+	    if(b == '"') {
+		//a quoted field could hide a comma, which would shift every field after it
+		throw new IOException("Row " + rows + " of the batting file has a quoted field, which isn't supported: " + line(buffer, start, end));
+	    }
+	    if(b == ',') {
+		if(field < columnOfField.length && columnOfField[field] >= 0) {
+		    stats[columnOfField[field]] = value;
+		}
+		if(field == yearField) {
+		    year = value;
+		}
+		field++;
+		value = 0;
+	    }
+	    else if(field == idField) {
+		if(idLength < scratch.length) {
+		    scratch[idLength++] = b;
+		}
+	    }
+	    else if(b >= '0' && b <= '9' && value <= (Integer.MAX_VALUE - 9) / 10) {
+		value = 10 * value + (b - '0');
+	    }
+	    else if(field == yearField || (field < columnOfField.length && columnOfField[field] >= 0)) {
+		throw new IOException("Row " + rows + " of the batting file has a stat that isn't a whole number: " + line(buffer, start, end));
+	    }
+	}
+	String key = new String(scratch, 0, idLength, StandardCharsets.US_ASCII);
+	if(bySeason) {
+	    key += " " + year;
+	}
+	int[] sums = totals.get(key);
+	if(sums == null) {
+	    totals.put(key, stats.clone());
+	}
+	else {
+	    for(int column = 0; column < COLUMNS.length; column++) {
+		sums[column] += stats[column];
+	    }
+	}
+    }
+
+    /**
+     * @return The number of rows read so far
+     */
+    public long getRows() {
+	return rows;
+    }
+
+    /**
+     * Makes a player for every career (or season) with enough plate appearances.
+     * Plate appearances are AB + BB + HBP + SH + SF, and outs in play are PA - BB - HBP - SO - H, as the Player constructor expects,
+     * so sacrifices count as outs in play (productive outs) just like everywhere else in the simulation.
+     * @param minPAs The fewest plate appearances a player needs.
+     * @return The players by playerID (followed by the year for seasons), in the order they first appear in the file.
+     */
+    public Map<String, ObpSlgSim.Player> players(int minPAs) {
+	Map<String, ObpSlgSim.Player> players = new LinkedHashMap<String, ObpSlgSim.Player>();
+	for(Map.Entry<String, int[]> entry : totals.entrySet()) {
+	    ObpSlgSim.Player player = player(entry.getValue(), minPAs);
+	    if(player != null) {
+		players.put(entry.getKey(), player);
+	    }
+	}
+	return players;
+    }
+
+    /**
+     * Makes a hitter for every career (or season) with enough plate appearances and at least one at-bat, for PairFinder.
+     * Their rates are the official ones, where sacrifices don't count as at-bats and sacrifice hits don't count against OBP,
+     * so they match what Stathead and Baseball-Reference list.
+     * @param minPAs The fewest plate appearances a hitter needs.
+     * @return The hitters, in the order they first appear in the file.
+     */
+    public List<PairFinder.Hitter> hitters(int minPAs) {
+	List<PairFinder.Hitter> hitters = new ArrayList<PairFinder.Hitter>();
+	for(Map.Entry<String, int[]> entry : totals.entrySet()) {
+	    int[] s = entry.getValue();
+	    ObpSlgSim.Player player = player(s, minPAs);
+	    if(player == null || s[AB] == 0) {
+		continue;
+	    }
+	    int totalBases = s[H] + s[DOUBLES] + 2 * s[TRIPLES] + 3 * s[HR];
+	    double obp = (double)(s[H] + s[BB] + s[HBP])/(s[AB] + s[BB] + s[HBP] + s[SF]);
+	    hitters.add(new PairFinder.Hitter(entry.getKey(), player, (double)s[H]/s[AB], obp, (double)totalBases/s[AB]));
+	}
+	return hitters;
+    }
+
+    //the player for one set of totals, or null if it has too few plate appearances or doesn't add up
+    private static ObpSlgSim.Player player(int[] s, int minPAs) {
+	int pa = s[AB] + s[BB] + s[HBP] + s[SH] + s[SF];
+	int singles = s[H] - s[DOUBLES] - s[TRIPLES] - s[HR];
+	int oip = pa - s[BB] - s[HBP] - s[SO] - s[H];
+	if(pa < minPAs || pa == 0 || singles < 0 || oip < 0) {
+	    return null;
+	}
+	return new ObpSlgSim.Player(pa, s[SO], oip, s[BB] + s[HBP], singles, s[DOUBLES], s[TRIPLES], s[HR]);
+    }
+
+    /**
+     * Prints players as a profile file that --league can read.
+     * @param players The players by name.
+     * @param out Where to print them.
+     */
+    public static void printProfiles(Map<String, ObpSlgSim.Player> players, PrintStream out) {
+	out.println("# name,PA,SO,outs in play,BB+HBP,1B,2B,3B,HR");
+	StringBuilder line = new StringBuilder();
+	for(Map.Entry<String, ObpSlgSim.Player> entry : players.entrySet()) {
+	    line.setLength(0);
+	    line.append(entry.getKey());
+	    for(int stat : entry.getValue().getStatLine()) {
+		line.append(',').append(stat);
+	    }
+	    out.println(line);
+	}
+    }
+}
@@ -0,0 +1,146 @@
+package obpslg;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+/**
+ * Saves the seasons of a long run as they finish, so a run that is killed can be started again and pick up where it left off.<br>
+ * The file is a short header with everything that decides what the seasons turn out to be (the master seed, the engine, the sampler and the generator),
+ * followed by the seasons in order in the binary results format. Every season's random numbers come from its own seed,
+ * so the season number is the position of every random number stream there is: nothing else needs saving.
+ * Resuming plays the saved seasons back through the same sink before simulating the rest, so the output and the summary come out exactly as if the run had never stopped.
+ * The file is forced to disk every few seconds; a season that was only partly written when the run was killed is dropped and simulated again.
+ */
+class Checkpoint implements Closeable {
+
+    static final int MAGIC = 0x4F425043; //"OBPC"
+    static final int VERSION = 1;
+    //how often the saved seasons are forced to disk
+    static final long SYNC_INTERVAL_NANOS = 10000000000L;
+
+    private final File file;
+    private final byte[] header;
+    private FileOutputStream stream;
+    private ResultWriter.Binary writer;
+    private long lastSync;
+
+    /**
+     * @param fileIn The checkpoint file. It is created if it doesn't exist.
+     * @param masterSeed The master seed of the run.
+     * @param settings The other settings that decide the seasons' results, in any form, as long as it's the same every time.
+     */
+    public Checkpoint(File fileIn, long masterSeed, String settings) throws IOException {
+	file = fileIn;
+	ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	DataOutputStream out = new DataOutputStream(bytes);
+	out.writeInt(MAGIC);
+	out.writeInt(VERSION);
+	out.writeLong(masterSeed);
+	out.writeUTF(settings);
+	out.close();
+	header = bytes.toByteArray();
+    }
+
+    /**
+     * @param file A checkpoint file.
+     * @return The master seed the run saved in it used, or null if there is no such file yet.
+     */
+    public static Long savedSeed(File file) throws IOException {
+	if(!file.exists()) {
+	    return null;
+	}
+	try(DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+	    if(in.readInt() != MAGIC || in.readInt() != VERSION) {
+		throw new IOException(file + " is not a checkpoint file this version can read");
+	    }
+	    return in.readLong();
+	}
+	catch(EOFException e) {
+	    //killed before the header was all written, so nothing was saved
+	    return null;
+	}
+    }
+
+    /**
+     * Passes the seasons saved so far to a sink in order, and gets ready to save the seasons after them.
+     * @param last The last season of the run. Saved seasons after it are left alone but not passed on.
+     * @param sink Where the seasons go.
+     * @return The first season that still has to be simulated, or 0 if the sink stopped the run or every season through last was saved.
+     */
+    public int resume(int last, SeasonRunner.Sink sink) throws IOException {
+	long saved = 0;
+	boolean stopped = false;
+	if(file.exists()) {
+	    try(FileInputStream in = new FileInputStream(file)) {
+		byte[] found = new byte[header.length];
+		new DataInputStream(in).readFully(found);
+		if(!Arrays.equals(found, header)) {
+		    throw new IOException(file + " was saved by a run with a different seed, engine, sampler or generator");
+		}
+		ResultWriter.BinaryReader reader = new ResultWriter.BinaryReader(in);
+		ObpSlgSim.SeasonResult result;
+		while((result = reader.read()) != null) {
+		    saved++;
+		    if(!stopped && result.season <= last) {
+			stopped = !sink.accept(result);
+		    }
+		}
+	    }
+	    catch(EOFException e) {
+		//the run was killed partway through writing a season (or the headers)
+	    }
+	}
+	if(stopped || saved >= last) {
+	    return 0;
+	}
+	//drop a season that was cut off, and write the headers if the file is new
+	try(RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+	    raf.setLength((saved == 0) ? 0 : header.length + ResultWriter.Binary.HEADER_SIZE + saved * ResultWriter.Binary.RECORD_SIZE);
+	}
+	stream = new FileOutputStream(file, true);
+	if(saved == 0) {
+	    stream.write(header);
+	}
+	writer = new ResultWriter.Binary(stream, saved == 0);
+	lastSync = System.nanoTime();
+	return (int)saved + 1;
+    }
+
+    /**
+     * Saves the next season, and forces everything saved to disk if it has been a while.
+     * @param result The season after the last one saved.
+     */
+    public void save(ObpSlgSim.SeasonResult result) throws IOException {
+	writer.write(result);
+	if(System.nanoTime() - lastSync > SYNC_INTERVAL_NANOS) {
+	    sync();
+	}
+    }
+
+    private void sync() throws IOException {
+	writer.flush();
+	stream.getFD().sync();
+	lastSync = System.nanoTime();
+    }
+
+    /**
+     * Forces everything saved to disk and closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+	if(writer != null) {
+	    sync();
+	    writer.close();
+	    writer = null;
+	}
+    }
+}
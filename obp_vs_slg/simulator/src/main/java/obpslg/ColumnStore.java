@@ -0,0 +1,420 @@
+package obpslg;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Season results (and optionally every game's score) kept as columns of little-endian numbers in memory-mapped files, so questions about millions of seasons
+ * are answered by scanning a few arrays instead of parsing text.<br>
+ * A store is a directory with one file per column. The season table has the season number (4 bytes) and each team's wins, losses, runs, BA, OBP and SLG
+ * (2 bytes each, the rate stats in thousandths like the binary results format). The game table, if the store has one, has 162 rows per season in order:
+ * each team's runs, the innings and whether the high OBP team was at home.<br>
+ * Appending writes straight into mappings of the files that grow by doubling, so while a run is appending the files are bigger than the rows written,
+ * and closing cuts them down. The number of seasons that are really there is kept in one more file, seasons.count, which is only updated
+ * once the columns have been forced to disk: every few seconds while appending, and when closing. So a run that is killed loses the seasons
+ * since the last update from the store, and the rows after the count are ignored when the store is opened and written over by the next run
+ * that appends to it. A store can be appended to by any number of later runs.
+ * Every column of a table is mapped whole, so a table can't be bigger than 2 GB per column: about a billion seasons, or six million seasons' games.<br>
+ * Queries are a filter (a list of column, comparison and value, all of which have to hold) and a column to summarize over the rows that pass, as a StreamingStats.Metric,
+ * which gives counts, means, quantiles and histograms exactly.
+ */
+class ColumnStore extends ResultWriter {
+
+    static final String[] SEASON_COLUMNS = {"season", "highObp.wins", "highObp.losses", "highObp.runs", "highObp.ba", "highObp.obp", "highObp.slg",
+					    "highSlg.wins", "highSlg.losses", "highSlg.runs", "highSlg.ba", "highSlg.obp", "highSlg.slg"};
+    static final String[] GAME_COLUMNS = {"game.highObpRuns", "game.highSlgRuns", "game.innings", "game.highObpHome"};
+    //how many rows the files grow by at first
+    private static final int INITIAL_ROWS = 1 << 12;
+    //how many rows a query filters at a time
+    private static final int BLOCK = 1 << 12;
+    //the file with the number of seasons committed
+    static final String COUNT_FILE = "seasons.count";
+
+    //One column file, mapped
+    private static class Column {
+	final String name;
+	final int width;
+	final FileChannel channel;
+	MappedByteBuffer buffer;
+
+	Column(File dir, String nameIn, int widthIn, boolean writable) throws IOException {
+	    name = nameIn;
+	    width = widthIn;
+	    channel = new RandomAccessFile(new File(dir, name + ".col"), writable ? "rw" : "r").getChannel();
+	}
+
+	long rows() throws IOException {
+	    return channel.size() / width;
+	}
+
+	void map(FileChannel.MapMode mode, long rows) throws IOException {
+	    if(rows * width > Integer.MAX_VALUE) {
+		throw new IOException("The column " + name + " can't grow past 2 GB");
+	    }
+	    buffer = channel.map(mode, 0, rows * width);
+	    buffer.order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	int get(int row) {
+	    return (width == 2) ? buffer.getShort(2 * row) : buffer.getInt(4 * row);
+	}
+
+	void put(int row, int value) {
+	    if(width == 2) {
+		buffer.putShort(2 * row, (short)value);
+	    }
+	    else {
+		buffer.putInt(4 * row, value);
+	    }
+	}
+    }
+
+    //One condition of a filter, kept as a range of values that passes it (or fails it, for !=) so testing a row is two comparisons
+    static class Condition {
+	final String column;
+	final int low, high;
+	final boolean outside;
+
+	/**
+	 * @param condition Like highSlg.wins>=95: a column, one of >=, <=, >, <, = and !=, and a whole number (rate stats in thousandths).
+	 */
+	Condition(String condition) {
+	    int start = 0;
+	    while(start < condition.length() && "<>=!".indexOf(condition.charAt(start)) < 0) {
+		start++;
+	    }
+	    int end = start;
+	    while(end < condition.length() && "<>=!".indexOf(condition.charAt(end)) >= 0) {
+		end++;
+	    }
+	    column = condition.substring(0, start).trim();
+	    String op = condition.substring(start, end);
+	    long value = Integer.parseInt(condition.substring(end).trim());
+	    long lowIn = Integer.MIN_VALUE, highIn = Integer.MAX_VALUE;
+	    switch(op) {
+	    case ">=":
+		lowIn = value;
+		break;
+	    case ">":
+		lowIn = value + 1;
+		break;
+	    case "<=":
+		highIn = value;
+		break;
+	    case "<":
+		highIn = value - 1;
+		break;
+	    case "=":
+	    case "!=":
+		lowIn = value;
+		highIn = value;
+		break;
+	    default:
+		throw new IllegalArgumentException("Not a condition: " + condition);
+	    }
+	    if(lowIn > highIn) {
+		//nothing passes, e.g. > the largest int
+		low = 1;
+		high = 0;
+	    }
+	    else {
+		low = (int)lowIn;
+		high = (int)highIn;
+	    }
+	    outside = op.equals("!=");
+	}
+
+	boolean test(int x) {
+	    return (x >= low && x <= high) != outside;
+	}
+    }
+
+    private final Column[] seasonColumns, gameColumns;
+    private final boolean writable;
+    private int seasons, capacity;
+    //the mapped count, if appending
+    private FileChannel countChannel;
+    private MappedByteBuffer count;
+    private long lastSync;
+
+    /**
+     * Opens a store, creating it if the directory doesn't have one.
+     * @param dir The directory.
+     * @param writableIn Whether seasons will be appended.
+     * @param games If the store is created, whether it keeps every game's score too. An existing store keeps what it has always kept.
+     */
+    public ColumnStore(File dir, boolean writableIn, boolean games) throws IOException {
+	writable = writableIn;
+	boolean exists = new File(dir, SEASON_COLUMNS[0] + ".col").exists();
+	if(!exists && !writable) {
+	    throw new IOException(dir + " has no results store");
+	}
+	dir.mkdirs();
+	seasonColumns = new Column[SEASON_COLUMNS.length];
+	for(int i = 0; i < seasonColumns.length; i++) {
+	    seasonColumns[i] = new Column(dir, SEASON_COLUMNS[i], (i == 0) ? 4 : 2, writable);
+	}
+	boolean hasGames = exists ? new File(dir, GAME_COLUMNS[0] + ".col").exists() : games;
+	gameColumns = hasGames ? new Column[GAME_COLUMNS.length] : null;
+	for(int i = 0; hasGames && i < gameColumns.length; i++) {
+	    gameColumns[i] = new Column(dir, GAME_COLUMNS[i], 2, writable);
+	}
+	//a run that was killed while growing the files can leave some of them bigger than others
+	long rows = Long.MAX_VALUE;
+	for(Column column : seasonColumns) {
+	    rows = Math.min(rows, column.rows());
+	}
+	for(int i = 0; hasGames && i < gameColumns.length; i++) {
+	    rows = Math.min(rows, gameColumns[i].rows() / 162);
+	}
+	File countFile = new File(dir, COUNT_FILE);
+	boolean counted = countFile.exists();
+	if(counted) {
+	    try(FileChannel channel = new RandomAccessFile(countFile, "r").getChannel()) {
+		if(channel.size() == 4) {
+		    rows = Math.min(rows, channel.map(FileChannel.MapMode.READ_ONLY, 0, 4).order(ByteOrder.LITTLE_ENDIAN).getInt(0));
+		}
+	    }
+	}
+	seasons = (int)rows;
+	capacity = writable ? Math.max(INITIAL_ROWS, seasons) : seasons;
+	mapAll();
+	if(!counted) {
+	    //a store without a count (from before it had one) only knows that a season's row was never written if its season is 0
+	    while(seasons > 0 && seasonColumns[0].get(seasons - 1) == 0) {
+		seasons--;
+	    }
+	}
+	if(writable) {
+	    countChannel = new RandomAccessFile(countFile, "rw").getChannel();
+	    count = countChannel.map(FileChannel.MapMode.READ_WRITE, 0, 4);
+	    count.order(ByteOrder.LITTLE_ENDIAN);
+	    count.putInt(0, seasons);
+	    count.force();
+	    lastSync = System.nanoTime();
+	}
+    }
+
+    private void mapAll() throws IOException {
+	FileChannel.MapMode mode = writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+	for(Column column : seasonColumns) {
+	    column.map(mode, capacity);
+	}
+	for(int i = 0; gameColumns != null && i < gameColumns.length; i++) {
+	    gameColumns[i].map(mode, 162L * capacity);
+	}
+    }
+
+    /**
+     * @return The number of seasons in the store
+     */
+    public int getSeasons() {
+	return seasons;
+    }
+
+    /**
+     * @return Whether the store has a game table
+     */
+    public boolean hasGames() {
+	return gameColumns != null;
+    }
+
+    /**
+     * Appends a season, and its games if the store keeps them.
+     * @param result The season. It has to have its games if the store keeps them.
+     */
+    @Override
+    public void write(ObpSlgSim.SeasonResult result) throws IOException {
+	if(gameColumns != null && result.games == null) {
+	    throw new IOException("This store keeps every game's score, but season " + result.season + " wasn't simulated game by game in this process");
+	}
+	if(seasons == capacity) {
+	    capacity = (int)Math.min(Integer.MAX_VALUE, 2L * capacity);
+	    mapAll();
+	}
+	int[] values = {result.season, result.highObp.wins, result.highObp.losses, result.highObp.runs, thousandths(result.highObp.ba),
+			thousandths(result.highObp.obp), thousandths(result.highObp.slg), result.highSlg.wins, result.highSlg.losses, result.highSlg.runs,
+			thousandths(result.highSlg.ba), thousandths(result.highSlg.obp), thousandths(result.highSlg.slg)};
+	for(int i = 0; i < values.length; i++) {
+	    seasonColumns[i].put(seasons, values[i]);
+	}
+	if(gameColumns != null) {
+	    for(int g = 0; g < 162; g++) {
+		int score = result.games[g], row = 162 * seasons + g;
+		gameColumns[0].put(row, score & 0xFF);
+		gameColumns[1].put(row, (score >>> 8) & 0xFF);
+		gameColumns[2].put(row, (score >>> 16) & 0xFF);
+		gameColumns[3].put(row, score >>> 24);
+	    }
+	}
+	seasons++;
+	if(System.nanoTime() - lastSync > Checkpoint.SYNC_INTERVAL_NANOS) {
+	    flush();
+	}
+    }
+
+    /**
+     * Forces the appended seasons to disk, and then the count that makes them part of the store.
+     */
+    @Override
+    public void flush() throws IOException {
+	if(writable) {
+	    for(Column column : columns()) {
+		column.buffer.force();
+	    }
+	    count.putInt(0, seasons);
+	    count.force();
+	    lastSync = System.nanoTime();
+	}
+    }
+
+    /**
+     * Forces the appended seasons to disk and cuts the files down to them.
+     */
+    @Override
+    public void close() throws IOException {
+	flush();
+	for(Column column : columns()) {
+	    column.buffer = null;
+	    if(writable) {
+		column.channel.truncate((long)column.width * ((column.name.startsWith("game.") ? 162L : 1L) * seasons));
+	    }
+	    column.channel.close();
+	}
+	if(writable) {
+	    count = null;
+	    countChannel.close();
+	}
+    }
+
+    private List<Column> columns() {
+	List<Column> all = new ArrayList<Column>();
+	for(Column column : seasonColumns) {
+	    all.add(column);
+	}
+	for(int i = 0; gameColumns != null && i < gameColumns.length; i++) {
+	    all.add(gameColumns[i]);
+	}
+	return all;
+    }
+
+    private Column column(String name) {
+	for(Column column : columns()) {
+	    if(column.name.equals(name)) {
+		return column;
+	    }
+	}
+	throw new IllegalArgumentException("No column " + name + " in this store");
+    }
+
+    /**
+     * Summarizes a column over the rows that pass a filter. The column and the filter's columns all have to be in the same table.
+     * @param name The column.
+     * @param filter The conditions a row has to meet. May be empty.
+     * @return The column's values over those rows.
+     */
+    public StreamingStats.Metric select(String name, List<Condition> filter) {
+	Column column = column(name);
+	boolean games = name.startsWith("game.");
+	Column[] columns = new Column[filter.size()];
+	for(int i = 0; i < columns.length; i++) {
+	    columns[i] = column(filter.get(i).column);
+	    if(columns[i].name.startsWith("game.") != games) {
+		throw new IllegalArgumentException("Season and game columns can't be mixed in one query");
+	    }
+	}
+	int rows = games ? 162 * seasons : seasons;
+	StreamingStats.Metric metric = new StreamingStats.Metric();
+	//the 2-byte columns are counted into a flat histogram, which the metric then takes in one go per value
+	long[] histogram = (column.width == 2) ? new long[1 << 16] : null;
+	//a block of rows at a time, one column at a time, which keeps the loops short and simple enough for the JIT
+	boolean[] pass = new boolean[BLOCK];
+	for(int first = 0; first < rows; first += BLOCK) {
+	    int n = Math.min(BLOCK, rows - first);
+	    Arrays.fill(pass, 0, n, true);
+	    for(int i = 0; i < columns.length; i++) {
+		Condition condition = filter.get(i);
+		Column filtered = columns[i];
+		for(int j = 0; j < n; j++) {
+		    pass[j] &= condition.test(filtered.get(first + j));
+		}
+	    }
+	    for(int j = 0; j < n; j++) {
+		if(!pass[j]) {
+		    continue;
+		}
+		if(histogram != null) {
+		    histogram[column.get(first + j) + (1 << 15)]++;
+		}
+		else {
+		    metric.add(column.get(first + j));
+		}
+	    }
+	}
+	for(int v = 0; histogram != null && v < histogram.length; v++) {
+	    metric.add(v - (1 << 15), histogram[v]);
+	}
+	return metric;
+    }
+
+    /**
+     * Answers a query and prints the answer.
+     * @param query One of count, min COLUMN, max COLUMN, mean COLUMN, median COLUMN, quantile Q COLUMN or histogram COLUMN,
+     * optionally followed by where and conditions separated by commas, e.g. count where highSlg.wins>=95.
+     * @param out Where to print the answer: a number, or a line of value and count for each value of a histogram.
+     */
+    public void query(String query, PrintStream out) {
+	String[] parts = query.trim().split("\\s+where\\s+|^where\\s+", 2);
+	List<Condition> filter = new ArrayList<Condition>();
+	if(parts.length > 1) {
+	    for(String condition : parts[1].split(",")) {
+		filter.add(new Condition(condition));
+	    }
+	}
+	String[] words = parts[0].trim().split("\\s+");
+	String op = words[0];
+	if(op.equals("count")) {
+	    out.println(select(filter.isEmpty() ? SEASON_COLUMNS[0] : filter.get(0).column, filter).getCount());
+	    return;
+	}
+	if(words.length != (op.equals("quantile") ? 3 : 2)) {
+	    throw new IllegalArgumentException("Not a query: " + query);
+	}
+	StreamingStats.Metric metric = select(words[words.length - 1], filter);
+	switch(op) {
+	case "min":
+	    out.println(metric.getMin());
+	    break;
+	case "max":
+	    out.println(metric.getMax());
+	    break;
+	case "mean":
+	    out.println(metric.getMean());
+	    break;
+	case "median":
+	    out.println(metric.getQuantile(0.5));
+	    break;
+	case "quantile":
+	    out.println(metric.getQuantile(Double.parseDouble(words[1])));
+	    break;
+	case "histogram":
+	    for(int v = metric.getMin(), max = metric.getMax(); metric.getCount() > 0 && v <= max; v++) {
+		long count = metric.countOf(v);
+		if(count > 0) {
+		    out.println(v + "\t" + count);
+		}
+	    }
+	    break;
+	default:
+	    throw new IllegalArgumentException("Not a query: " + query);
+	}
+    }
+}
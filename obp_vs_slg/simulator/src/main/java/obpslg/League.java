@@ -0,0 +1,230 @@
+package obpslg;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A league of any number of teams, each a lineup of nine copies of one player profile, playing a balanced 162-game season.<br>
+ * The season is made of 3-game series. A series can start as soon as both of its teams have finished their previous series,
+ * so series that don't share a team run at the same time on a work-stealing pool.
+ * Every series draws from its own seed, so the standings only depend on the seed, not on the number of threads.
+ */
+class League {
+
+    public static final int SEASON_GAMES = 162;
+    public static final int SERIES_LENGTH = 3;
+
+    //Three games between two teams, all at the home team's park
+    static class Series {
+	final int away, home;
+	public Series(int awayIn, int homeIn) {
+	    away = awayIn;
+	    home = homeIn;
+	}
+    }
+
+    private final ObpSlgSim.Team[] teams;
+    private final int[] runsAllowed;
+    private final List<Series> schedule;
+
+    /**
+     * Creates a league of brand new teams, in the order of the profiles.
+     * @param profiles The player each team's lineup is made of, by team name.
+     * @param sampler How the players' plate appearances are drawn.
+     */
+    public League(Map<String, ObpSlgSim.Player> profiles, OutcomeSampler.Kind sampler) {
+	if(profiles.size() < 2) {
+	    throw new IllegalArgumentException("A league needs at least 2 teams");
+	}
+	teams = new ObpSlgSim.Team[profiles.size()];
+	int i = 0;
+	for(Map.Entry<String, ObpSlgSim.Player> profile : profiles.entrySet()) {
+	    ObpSlgSim.Player prototype = new ObpSlgSim.Player(profile.getValue());
+	    prototype.setSampler(sampler);
+	    teams[i++] = ObpSlgSim.buildTeam(prototype, profile.getKey());
+	}
+	runsAllowed = new int[teams.length];
+	schedule = schedule(teams.length);
+    }
+
+    /**
+     * Reads player profiles from a file with one per line: name,PA,SO,outs in play,BB+HBP,1B,2B,3B,HR.
+     * Blank lines and lines starting with # are skipped. Every name has to be different, since each is a team.
+     * @param file The file to read.
+     * @return The profiles by name, in the order of the file.
+     */
+    public static Map<String, ObpSlgSim.Player> readProfiles(String file) throws IOException {
+	Map<String, ObpSlgSim.Player> profiles = new LinkedHashMap<String, ObpSlgSim.Player>();
+	try(BufferedReader in = new BufferedReader(new FileReader(file))) {
+	    String line;
+	    int lineNumber = 0;
+	    while((line = in.readLine()) != null) {
+		lineNumber++;
+		line = line.trim();
+		if(line.isEmpty() || line.startsWith("#")) {
+		    continue;
+		}
+		String[] fields = line.split(",");
+		if(fields.length != 9) {
+		    throw new IllegalArgumentException("Expected name,PA,SO,OIP,BB+HBP,1B,2B,3B,HR but got: " + line);
+		}
+		int[] stats = new int[8];
+		for(int i = 0; i < 8; i++) {
+		    stats[i] = Integer.parseInt(fields[i+1].trim());
+		}
+		if(stats[0] != stats[1] + stats[2] + stats[3] + stats[4] + stats[5] + stats[6] + stats[7]) {
+		    throw new IllegalArgumentException("The outcomes don't add up to the plate appearances for " + fields[0]);
+		}
+		if(profiles.containsKey(fields[0].trim())) {
+		    throw new IllegalArgumentException("Line " + lineNumber + " of " + file + " has a second profile for " + fields[0].trim());
+		}
+		profiles.put(fields[0].trim(), new ObpSlgSim.Player(stats[0], stats[1], stats[2], stats[3], stats[4], stats[5], stats[6], stats[7]));
+	    }
+	}
+	return profiles;
+    }
+
+    /**
+     * Makes a schedule where every team plays 162 games, as 54 3-game series, half of them at home when that's possible.<br>
+     * Every pair of teams meets the same number of times in each full round robin, with the home team switching between round robins.
+     * The series left over after the last full round robin pair each team with its nearest neighbors in a circle (plus the team across from it if needed),
+     * so those are spread evenly too. Within a round robin the series are listed round by round, so consecutive series rarely share a team.
+     * @param numTeams The number of teams in the league.
+     * @return The series in the order they are played.
+     */
+    static List<Series> schedule(int numTeams) {
+	int seriesPerTeam = SEASON_GAMES / SERIES_LENGTH;
+	int roundRobins = seriesPerTeam / (numTeams - 1), extra = seriesPerTeam % (numTeams - 1);
+	List<Series> schedule = new ArrayList<Series>();
+	//the circle method: with a bye added to make the count even, one team stays put and the rest rotate around it
+	int slots = numTeams + numTeams % 2;
+	for(int cycle = 0; cycle < roundRobins; cycle++) {
+	    for(int round = 0; round < slots - 1; round++) {
+		addSeries(schedule, numTeams, cycle, slots - 1, round);
+		for(int k = 1; k < slots / 2; k++) {
+		    addSeries(schedule, numTeams, cycle, (round + k) % (slots - 1), (round - k + slots - 1) % (slots - 1));
+		}
+	    }
+	}
+	//extra is always even for an odd number of teams, so the team across only comes up with an even number
+	for(int offset = 1; offset <= extra / 2; offset++) {
+	    for(int team = 0; team < numTeams; team++) {
+		addSeries(schedule, numTeams, roundRobins, team, (team + offset) % numTeams);
+	    }
+	}
+	if(extra % 2 == 1) {
+	    for(int team = 0; team < numTeams / 2; team++) {
+		addSeries(schedule, numTeams, roundRobins, team, team + numTeams / 2);
+	    }
+	}
+	return schedule;
+    }
+
+    /**
+     * Adds a series between two teams, picking the home team so every team hosts as often as it visits.
+     * Each pair is seen as going from a team to the one at most halfway around the circle from it; the team at the end hosts in even round robins.
+     * Skips the pairing if either team is the bye.
+     */
+    private static void addSeries(List<Series> schedule, int numTeams, int cycle, int a, int b) {
+	if(a >= numTeams || b >= numTeams) {
+	    return;
+	}
+	int offset = (b - a + numTeams) % numTeams;
+	if(2 * offset > numTeams || (2 * offset == numTeams && a > b)) {
+	    int swap = a;
+	    a = b;
+	    b = swap;
+	}
+	schedule.add((cycle % 2 == 0) ? new Series(a, b) : new Series(b, a));
+    }
+
+    /**
+     * Plays the whole season.
+     * @param seed The seed the season's series get their own seeds from.
+     * @param rng The generator each series uses.
+     * @param threads How many series to play at once.
+     */
+    public void play(long seed, RandomSource.Kind rng, int threads) throws InterruptedException, ExecutionException {
+	ExecutorService pool = Executors.newWorkStealingPool(threads);
+	//the series each team played last; a series waits for both of its teams' previous ones,
+	//which also makes each team's stats from one series visible to the thread playing its next one
+	CompletableFuture<?>[] last = new CompletableFuture<?>[teams.length];
+	Arrays.fill(last, CompletableFuture.completedFuture(null));
+	try {
+	    for(int i = 0; i < schedule.size(); i++) {
+		final Series series = schedule.get(i);
+		final RandomSource r = rng.create(ObpSlgSim.seasonSeed(seed, i + 1));
+		CompletableFuture<Void> next = last[series.away].runAfterBothAsync(last[series.home], () -> playSeries(series, r), pool);
+		last[series.away] = next;
+		last[series.home] = next;
+	    }
+	    CompletableFuture.allOf(last).get();
+	}
+	finally {
+	    pool.shutdownNow();
+	}
+    }
+
+    private void playSeries(Series series, RandomSource r) {
+	ObpSlgSim.Team away = teams[series.away], home = teams[series.home];
+	ObpSlgSim.GameState game = ObpSlgSim.gameState();
+	for(int i = 0; i < SERIES_LENGTH; i++) {
+	    ObpSlgSim.playGame(away, home, r, null, game);
+	    runsAllowed[series.away] += game.homeRuns;
+	    runsAllowed[series.home] += game.awayRuns;
+	}
+    }
+
+    /**
+     * @return The series of the season in the order they are played
+     */
+    public List<Series> getSchedule() {
+	return schedule;
+    }
+
+    /**
+     * Prints the standings, best record first, and then every team's batting line.
+     * @param out Where to print them.
+     */
+    public void printStandings(PrintStream out) {
+	Integer[] order = new Integer[teams.length];
+	for(int i = 0; i < order.length; i++) {
+	    order[i] = i;
+	}
+	Arrays.sort(order, Comparator.comparingInt((Integer i) -> teams[i].losses - teams[i].wins).thenComparingInt(i -> runsAllowed[i] - teams[i].runs));
+	int width = 4;
+	for(ObpSlgSim.Team team : teams) {
+	    width = Math.max(width, team.name.length());
+	}
+	ObpSlgSim.Team leader = teams[order[0]];
+	out.println("Standings:");
+	out.println(String.format("%-" + width + "s %4s %4s %5s %5s %5s %5s", "Team", "W", "L", "PCT", "GB", "RS", "RA"));
+	for(int i : order) {
+	    ObpSlgSim.Team team = teams[i];
+	    int behind = (leader.wins - team.wins) + (team.losses - leader.losses);
+	    String gamesBehind = (behind == 0) ? "-" : (behind / 2) + ((behind % 2 == 1) ? ".5" : "");
+	    out.println(String.format("%-" + width + "s %4d %4d %5s %5s %5d %5d", team.name, team.wins, team.losses, ResultWriter.rate(team.getWPCT()), gamesBehind, team.runs, runsAllowed[i]));
+	}
+	out.println();
+	out.println("Batting:");
+	out.println(String.format("%-" + width + "s %5s %5s %5s %4s %4s %4s %5s %5s %5s %5s %5s %5s", "Team", "PA", "AB", "H", "2B", "3B", "HR", "BB", "SO", "BA", "OBP", "SLG", "OPS"));
+	for(int i : order) {
+	    ObpSlgSim.Team team = teams[i];
+	    out.println(String.format("%-" + width + "s %5d %5d %5d %4d %4d %4d %5d %5d %5s %5s %5s %5s", team.name, team.getPAs(), team.getABs(), team.getHits(),
+				      team.getDoubles(), team.getTriples(), team.getHomers(), team.getBbHbp(), team.getStrikeouts(),
+				      ResultWriter.rate(team.getBA()), ResultWriter.rate(team.getOBP()), ResultWriter.rate(team.getSLG()), ResultWriter.rate(team.getOBP() + team.getSLG())));
+	}
+    }
+}
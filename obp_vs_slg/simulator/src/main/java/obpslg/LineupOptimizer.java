@@ -0,0 +1,431 @@
+package obpslg;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Finds the batting orders of nine given hitters that score the most runs.<br>
+ * Hitters with the same stat line can trade places without changing anything, so only orders that differ in which kind of hitter bats where are searched:
+ * 362,880 when all nine are different, but only 126 for five of one hitter and four of another.<br>
+ * Every order is scored with its exact expected runs in nine innings from the Markov chain over the base-out states. What a half-inning led off by a spot does
+ * (its expected runs and who leads off next) only depends on the order starting from that spot, which is itself one of the orders,
+ * so it is computed once per order and looked up for the other eight spots. Those half-innings are computed in a depth-first walk over the orders,
+ * where every order starting the same way shares the work of the batters they have in common, and the walk is split up on a fork/join pool.
+ * The best orders are then confirmed by playing games with each of them, using the same random numbers for every order so the differences between them are sharper.
+ */
+class LineupOptimizer {
+
+    static final int LINEUP = 9;
+    //the half-inning chains stop once less than this much probability is left
+    private static final double EPSILON = 1e-12;
+
+    //One batting order and how many runs it scores
+    static class Order {
+	final int[] kinds;
+	final double expectedRuns;
+	double simulatedRuns, simulatedHalfWidth;
+
+	Order(int[] kindsIn, double expectedRunsIn) {
+	    kinds = kindsIn;
+	    expectedRuns = expectedRunsIn;
+	}
+    }
+
+    private final String[] names;
+    private final Map<String, Integer> kindOf = new LinkedHashMap<String, Integer>();
+    private final ObpSlgSim.Player[] players;
+    private final int[] counts;
+    //transitions[kind][state] lists the next state, runs scored and probability of everything the kind of hitter can do in that state, 3 numbers per entry
+    private final double[][][] transitions;
+    //every order, encoded 4 bits per spot with the leadoff spot highest, in increasing order; the rest are indexed the same way
+    private long[] keys;
+    private double[] inningRuns;
+    //nextLead[LINEUP * i + j] is the chance of the spot j after the leadoff spot of the half-inning leading off the next one
+    private double[] nextLead;
+
+    /**
+     * @param lineup The nine hitters, by name. Hitters with the same stat line are the same kind of hitter, even if their names are different.
+     * @param profiles The stat lines of the hitters by name.
+     */
+    public LineupOptimizer(List<String> lineup, Map<String, ObpSlgSim.Player> profiles) {
+	if(lineup.size() != LINEUP) {
+	    throw new IllegalArgumentException("A lineup has " + LINEUP + " hitters, not " + lineup.size());
+	}
+	Map<String, Integer> kindOfLine = new LinkedHashMap<String, Integer>();
+	List<String> kindNames = new ArrayList<String>();
+	List<ObpSlgSim.Player> kindPlayers = new ArrayList<ObpSlgSim.Player>();
+	for(String name : lineup) {
+	    if(!profiles.containsKey(name)) {
+		throw new IllegalArgumentException("No profile for " + name);
+	    }
+	    if(kindOf.containsKey(name)) {
+		continue;
+	    }
+	    String line = Arrays.toString(profiles.get(name).getStatLine());
+	    Integer kind = kindOfLine.get(line);
+	    if(kind == null) {
+		kind = kindOfLine.size();
+		kindOfLine.put(line, kind);
+		kindNames.add(name);
+		kindPlayers.add(profiles.get(name));
+	    }
+	    else {
+		kindNames.set(kind, kindNames.get(kind) + " / " + name);
+	    }
+	    kindOf.put(name, kind);
+	}
+	names = kindNames.toArray(new String[0]);
+	players = kindPlayers.toArray(new ObpSlgSim.Player[0]);
+	counts = new int[names.length];
+	for(String name : lineup) {
+	    counts[kindOf.get(name)]++;
+	}
+	transitions = new double[names.length][][];
+	for(int kind = 0; kind < names.length; kind++) {
+	    transitions[kind] = transitions(players[kind].getOutcomeProbabilities());
+	}
+    }
+
+    //everything one hitter can do from every state, with the sub-rolls of BaseOutStates already taken into account
+    private static double[][] transitions(double[] probs) {
+	double[][] table = new double[BaseOutStates.STATES][];
+	int[] events = new int[3];
+	double[] eventProbs = new double[3];
+	for(int state = 0; state < BaseOutStates.STATES; state++) {
+	    List<double[]> entries = new ArrayList<double[]>();
+	    for(int outcome = 0; outcome < probs.length; outcome++) {
+		if(probs[outcome] == 0) {
+		    continue;
+		}
+		int numEvents = BaseOutStates.eventProbabilities(outcome, state, false, events, eventProbs);
+		for(int e = 0; e < numEvents; e++) {
+		    int transition = events[e] * BaseOutStates.STATES + state;
+		    entries.add(new double[]{BaseOutStates.NEXT_STATE[transition], BaseOutStates.RUNS[transition], probs[outcome] * eventProbs[e]});
+		}
+	    }
+	    table[state] = new double[3 * entries.size()];
+	    for(int i = 0; i < entries.size(); i++) {
+		System.arraycopy(entries.get(i), 0, table[state], 3 * i, 3);
+	    }
+	}
+	return table;
+    }
+
+    /**
+     * @return The number of different orders, the multinomial coefficient of the hitters' counts
+     */
+    public int getOrderCount() {
+	return countOrders(counts.clone());
+    }
+
+    private static int countOrders(int[] counts) {
+	long orders = 1;
+	int n = 0;
+	for(int count : counts) {
+	    for(int i = 1; i <= count; i++) {
+		orders = orders * ++n / i;
+	    }
+	}
+	return (int)orders;
+    }
+
+    /**
+     * @return The names of the kinds of hitters, in the order the kinds are numbered. Hitters with the same stat line share a kind, and its name is theirs joined with slashes.
+     */
+    public String[] getNames() {
+	return names;
+    }
+
+    /**
+     * @param name One of the hitters in the lineup.
+     * @return The number of the hitter's kind
+     */
+    public int getKind(String name) {
+	return kindOf.get(name);
+    }
+
+    /**
+     * Scores every order and returns the best.
+     * @param pool The pool to split the work up on.
+     * @param top How many of the best orders to return.
+     * @return The best orders, best first.
+     */
+    public List<Order> search(ForkJoinPool pool, int top) {
+	int orders = getOrderCount();
+	keys = new long[orders];
+	inningRuns = new double[orders];
+	nextLead = new double[LINEUP * orders];
+	//first every order's half-inning from its leadoff spot, then every order's nine innings from those
+	pool.invoke(new HalfInnings(new int[LINEUP], 0, counts.clone(), 0));
+	final double[] scores = new double[orders];
+	pool.invoke(new Scores(scores, 0, orders));
+	Integer[] best = new Integer[orders];
+	for(int i = 0; i < orders; i++) {
+	    best[i] = i;
+	}
+	Arrays.sort(best, (a, b) -> Double.compare(scores[b], scores[a]));
+	List<Order> result = new ArrayList<Order>();
+	for(int i = 0; i < Math.min(top, orders); i++) {
+	    result.add(new Order(decode(keys[best[i]]), scores[best[i]]));
+	}
+	return result;
+    }
+
+    private static int[] decode(long key) {
+	int[] kinds = new int[LINEUP];
+	for(int spot = 0; spot < LINEUP; spot++) {
+	    kinds[spot] = (int)(key >>> (4 * (LINEUP - 1 - spot))) & 15;
+	}
+	return kinds;
+    }
+
+    private static long encode(int[] kinds, int lead) {
+	long key = 0;
+	for(int spot = 0; spot < LINEUP; spot++) {
+	    key = (key << 4) | kinds[(lead + spot) % LINEUP];
+	}
+	return key;
+    }
+
+    /**
+     * Walks every order that starts with the given spots, in increasing order, computing each one's half-inning from its leadoff spot.
+     * The chain of base-out states is carried along as spots are filled in, so orders that start the same way share it. Orders with different
+     * first hitters are split into separate tasks, which fill in separate, consecutive parts of the arrays.
+     */
+    private class HalfInnings extends RecursiveAction {
+	private static final long serialVersionUID = 1L;
+	private final int[] kinds, left;
+	private final int depth, first;
+
+	//first is where the orders starting with these spots go in the arrays
+	HalfInnings(int[] kindsIn, int depthIn, int[] leftIn, int firstIn) {
+	    kinds = kindsIn;
+	    depth = depthIn;
+	    left = leftIn;
+	    first = firstIn;
+	}
+
+	@Override
+	protected void compute() {
+	    if(depth == 0) {
+		List<HalfInnings> tasks = new ArrayList<HalfInnings>();
+		int offset = first;
+		for(int kind = 0; kind < left.length; kind++) {
+		    if(left[kind] == 0) {
+			continue;
+		    }
+		    int[] kindsCopy = kinds.clone(), leftCopy = left.clone();
+		    kindsCopy[0] = kind;
+		    leftCopy[kind]--;
+		    tasks.add(new HalfInnings(kindsCopy, 1, leftCopy, offset));
+		    offset += countOrders(leftCopy);
+		}
+		invokeAll(tasks);
+		return;
+	    }
+	    //the chain after each number of batters, and what has already happened in it
+	    double[][] chain = new double[LINEUP + 1][BaseOutStates.STATES];
+	    double[] runs = new double[LINEUP + 1];
+	    double[][] ended = new double[LINEUP + 1][LINEUP];
+	    chain[0][0] = 1;
+	    for(int k = 0; k < depth; k++) {
+		step(kinds[k], chain[k], chain[k + 1], ended[k], ended[k + 1], runs, k);
+	    }
+	    walk(depth, chain, runs, ended, new int[]{first});
+	}
+
+	//fills in the spot k, and the ones after it, every possible way
+	private void walk(int k, double[][] chain, double[] runs, double[][] ended, int[] next) {
+	    if(k == LINEUP) {
+		finish(chain[LINEUP], runs[LINEUP], ended[LINEUP], next[0]++);
+		return;
+	    }
+	    for(int kind = 0; kind < left.length; kind++) {
+		if(left[kind] == 0) {
+		    continue;
+		}
+		left[kind]--;
+		kinds[k] = kind;
+		step(kind, chain[k], chain[k + 1], ended[k], ended[k + 1], runs, k);
+		walk(k + 1, chain, runs, ended, next);
+		left[kind]++;
+	    }
+	}
+
+	//goes around the order again until the half-inning is all but certainly over, and saves the result
+	private void finish(double[] afterNine, double runsSoFar, double[] endedSoFar, int index) {
+	    double[] cur = afterNine.clone(), next = new double[BaseOutStates.STATES], end = endedSoFar.clone();
+	    double[] total = {runsSoFar};
+	    double left;
+	    int k = LINEUP;
+	    do {
+		left = advance(kinds[k % LINEUP], cur, next, end, total, k);
+		double[] swap = cur;
+		cur = next;
+		next = swap;
+		k++;
+	    } while(left > EPSILON);
+	    keys[index] = encode(kinds, 0);
+	    inningRuns[index] = total[0];
+	    System.arraycopy(end, 0, nextLead, LINEUP * index, LINEUP);
+	}
+
+	private void step(int kind, double[] from, double[] to, double[] endedFrom, double[] endedTo, double[] runs, int k) {
+	    System.arraycopy(endedFrom, 0, endedTo, 0, LINEUP);
+	    double[] total = {runs[k]};
+	    advance(kind, from, to, endedTo, total, k);
+	    runs[k + 1] = total[0];
+	}
+
+	/**
+	 * Has the k-th batter of the half-inning (from 0) bat in every state.
+	 * @return The chance of the half-inning still going afterwards.
+	 */
+	private double advance(int kind, double[] from, double[] to, double[] ended, double[] runs, int k) {
+	    Arrays.fill(to, 0);
+	    double left = 0;
+	    double[][] table = transitions[kind];
+	    for(int state = 0; state < BaseOutStates.STATES; state++) {
+		double p = from[state];
+		if(p == 0) {
+		    continue;
+		}
+		double[] entries = table[state];
+		for(int i = 0; i < entries.length; i += 3) {
+		    double q = p * entries[i + 2];
+		    runs[0] += q * entries[i + 1];
+		    int newState = (int)entries[i];
+		    if(newState == BaseOutStates.INNING_OVER) {
+			ended[(k + 1) % LINEUP] += q;
+		    }
+		    else {
+			to[newState] += q;
+			left += q;
+		    }
+		}
+	    }
+	    return left;
+	}
+    }
+
+    //Adds up nine innings for a range of orders, looking up the half-innings led off by each spot
+    private class Scores extends RecursiveAction {
+	private static final long serialVersionUID = 1L;
+	private static final int CHUNK = 4096;
+	private final double[] scores;
+	private final int from, to;
+
+	Scores(double[] scoresIn, int fromIn, int toIn) {
+	    scores = scoresIn;
+	    from = fromIn;
+	    to = toIn;
+	}
+
+	@Override
+	protected void compute() {
+	    if(to - from > CHUNK) {
+		int middle = (from + to) >>> 1;
+		invokeAll(new Scores(scores, from, middle), new Scores(scores, middle, to));
+		return;
+	    }
+	    int[] rotation = new int[LINEUP];
+	    double[] lead = new double[LINEUP], after = new double[LINEUP];
+	    for(int i = from; i < to; i++) {
+		int[] kinds = decode(keys[i]);
+		//the half-inning led off by each spot is the one of the order starting there
+		for(int spot = 0; spot < LINEUP; spot++) {
+		    rotation[spot] = Arrays.binarySearch(keys, encode(kinds, spot));
+		}
+		Arrays.fill(lead, 0);
+		lead[0] = 1;
+		double runs = 0;
+		for(int inning = 0; inning < 9; inning++) {
+		    Arrays.fill(after, 0);
+		    for(int spot = 0; spot < LINEUP; spot++) {
+			int r = rotation[spot];
+			runs += lead[spot] * inningRuns[r];
+			for(int j = 0; j < LINEUP; j++) {
+			    after[(spot + j) % LINEUP] += lead[spot] * nextLead[LINEUP * r + j];
+			}
+		    }
+		    double[] swap = lead;
+		    lead = after;
+		    after = swap;
+		}
+		scores[i] = runs;
+	    }
+	}
+    }
+
+    /**
+     * Plays games with each order as the away team, against a team with the hitters in the order given, and records the runs each order scores.
+     * Every order plays the same number of games from the same seed, so they see the same random numbers as long as they stay in step.
+     * @param orders The orders to play.
+     * @param opponent The kinds of hitters in the opposing team's order.
+     * @param games How many games each order plays.
+     * @param seed The seed every order's games start from.
+     * @param sampler How plate appearances are drawn.
+     * @param rng The generator.
+     * @param pool Where to play the orders at the same time.
+     */
+    public void confirm(List<Order> orders, final int[] opponent, final int games, final long seed, final OutcomeSampler.Kind sampler, final RandomSource.Kind rng, ForkJoinPool pool) {
+	List<RecursiveAction> tasks = new ArrayList<RecursiveAction>();
+	for(final Order order : orders) {
+	    tasks.add(new RecursiveAction() {
+		    @Override
+		    protected void compute() {
+			ObpSlgSim.Team away = team(order.kinds, sampler, "Away"), home = team(opponent, sampler, "Home");
+			RandomSource r = rng.create(seed);
+			ObpSlgSim.GameState game = ObpSlgSim.gameState();
+			StreamingStats.Metric runs = new StreamingStats.Metric();
+			for(int i = 0; i < games; i++) {
+			    runs.add(ObpSlgSim.playGame(away, home, r, null, game).awayRuns);
+			}
+			order.simulatedRuns = runs.getMean();
+			order.simulatedHalfWidth = runs.getHalfWidth();
+		    }
+		});
+	}
+	pool.invoke(new RecursiveAction() {
+		@Override
+		protected void compute() {
+		    invokeAll(tasks);
+		}
+	    });
+    }
+
+    private ObpSlgSim.Team team(int[] kinds, OutcomeSampler.Kind sampler, String name) {
+	ObpSlgSim.Player[] lineup = new ObpSlgSim.Player[LINEUP];
+	for(int spot = 0; spot < LINEUP; spot++) {
+	    lineup[spot] = new ObpSlgSim.Player(players[kinds[spot]]);
+	    lineup[spot].setSampler(sampler);
+	}
+	return new ObpSlgSim.Team(lineup, name);
+    }
+
+    /**
+     * Prints orders with their scores.
+     * @param orders The orders, best first.
+     * @param out Where to print them.
+     */
+    public void print(List<Order> orders, PrintStream out) {
+	for(int i = 0; i < orders.size(); i++) {
+	    Order order = orders.get(i);
+	    StringBuilder line = new StringBuilder(String.format("%2d. %.3f expected runs/9", i + 1, order.expectedRuns));
+	    if(order.simulatedHalfWidth > 0) {
+		line.append(String.format(", %.3f +/- %.3f simulated runs/game", order.simulatedRuns, order.simulatedHalfWidth));
+	    }
+	    line.append(":");
+	    for(int spot = 0; spot < LINEUP; spot++) {
+		line.append((spot == 0) ? " " : ", ").append(names[order.kinds[spot]]);
+	    }
+	    out.println(line);
+	}
+    }
+}
@@ -0,0 +1,290 @@
+package obpslg;
+
+import java.util.Arrays;
+
+/**
+ * Computes exactly what the simulation only estimates, by treating a game as a Markov chain over the 24 base-out states.<br>
+ * It uses the same rules as simInning (the transition tables and sub-rolls of BaseOutStates and the players' outcome probabilities),
+ * so its answers are what the Monte Carlo averages converge to: the distribution of runs in a half-inning from each leadoff spot,
+ * expected runs per game, and head-to-head win probabilities including walk-offs and extra innings.<br>
+ * Runs in a half-inning are capped at RUN_CAP and a team's runs in regulation at TOTAL_CAP; the probability mass past either is far below what a double can show.
+ */
+class MarkovEngine {
+
+    //the most runs a half-inning can score here; anything more is counted as this many
+    static final int RUN_CAP = 40;
+    //the most runs a team can score in the first eight innings here
+    static final int TOTAL_CAP = 120;
+    //stop following a half-inning, or extra innings, once this little probability is left
+    private static final double EPSILON = 1e-15;
+
+    //One team's lineup, with the half-inning distributions precomputed for every leadoff spot
+    static class Lineup {
+	final int size;
+	//probs[batter][outcome]
+	final double[][] probs;
+	//halfInning[leadoff][runs * size + next leadoff] is the chance of a full half-inning scoring that many runs and ending with that leadoff spot due up next
+	final double[][] halfInning;
+	//walkOffChance[leadoff][d] is the chance of scoring more than d runs before the third out, and walkOffRuns[leadoff][d] the expected runs scored when that happens
+	final double[][] walkOffChance, walkOffRuns;
+
+	/**
+	 * @param lineup The players in their batting order.
+	 */
+	public Lineup(ObpSlgSim.Player[] lineup) {
+	    size = lineup.length;
+	    probs = new double[size][];
+	    for(int i = 0; i < size; i++) {
+		probs[i] = lineup[i].getOutcomeProbabilities();
+	    }
+	    halfInning = new double[size][];
+	    walkOffChance = new double[size][RUN_CAP + 1];
+	    walkOffRuns = new double[size][RUN_CAP + 1];
+	    for(int lead = 0; lead < size; lead++) {
+		halfInning[lead] = new double[(RUN_CAP + 1) * size];
+		simulate(lead, -1, halfInning[lead], null);
+		double[] walkOff = new double[2];
+		for(int d = 0; d <= RUN_CAP; d++) {
+		    simulate(lead, d, null, walkOff);
+		    walkOffChance[lead][d] = walkOff[0];
+		    walkOffRuns[lead][d] = walkOff[1];
+		}
+	    }
+	}
+
+	/**
+	 * Follows the probability of every base-out state and run total through a half-inning, one plate appearance at a time.
+	 * The batter of the k-th plate appearance is always (lead + k) % size, so the spot in the order doesn't need to be part of the state.
+	 * @param lead The leadoff spot.
+	 * @param downBy If not negative, the half-inning is a potential walk-off with the team down by this many, and ends as soon as it takes the lead.
+	 * @param end If not null, filled with the chance of each (runs, next leadoff) for the half-inning ending with three outs.
+	 * @param walkOff If not null, filled with the chance of a walk-off and the expected runs scored in one.
+	 */
+	private void simulate(int lead, int downBy, double[] end, double[] walkOff) {
+	    double[] cur = new double[BaseOutStates.STATES * (RUN_CAP + 1)], next = new double[cur.length];
+	    int[] events = new int[3];
+	    double[] eventProbs = new double[3];
+	    double walkOffChance = 0, walkOffRuns = 0;
+	    cur[0] = 1;
+	    double left = 1;
+	    for(int k = 0; left > EPSILON; k++) {
+		int batter = (lead + k) % size, nextBatter = (batter + 1) % size;
+		Arrays.fill(next, 0);
+		left = 0;
+		for(int state = 0; state < BaseOutStates.STATES; state++) {
+		    for(int runs = 0; runs <= RUN_CAP; runs++) {
+			double p = cur[state * (RUN_CAP + 1) + runs];
+			if(p == 0) {
+			    continue;
+			}
+			boolean runFromThirdWins = downBy >= 0 && downBy < runs + 1;
+			for(int outcome = 0; outcome < 7; outcome++) {
+			    double q = p * probs[batter][outcome];
+			    if(q == 0) {
+				continue;
+			    }
+			    int numEvents = BaseOutStates.eventProbabilities(outcome, state, runFromThirdWins, events, eventProbs);
+			    for(int e = 0; e < numEvents; e++) {
+				double pe = q * eventProbs[e];
+				int transition = events[e] * BaseOutStates.STATES + state;
+				int newRuns = runs + BaseOutStates.RUNS[transition];
+				int newState = BaseOutStates.NEXT_STATE[transition];
+				if(downBy >= 0 && downBy < newRuns) {
+				    walkOffChance += pe;
+				    walkOffRuns += pe * newRuns;
+				    continue;
+				}
+				newRuns = Math.min(newRuns, RUN_CAP);
+				if(newState == BaseOutStates.INNING_OVER) {
+				    if(end != null) {
+					end[newRuns * size + nextBatter] += pe;
+				    }
+				}
+				else {
+				    next[newState * (RUN_CAP + 1) + newRuns] += pe;
+				    left += pe;
+				}
+			    }
+			}
+		    }
+		}
+		double[] swap = cur;
+		cur = next;
+		next = swap;
+	    }
+	    if(walkOff != null) {
+		walkOff[0] = walkOffChance;
+		walkOff[1] = walkOffRuns;
+	    }
+	}
+
+	/**
+	 * @param lead The leadoff spot.
+	 * @return The expected runs in a half-inning led off by that spot
+	 */
+	public double expectedInningRuns(int lead) {
+	    double expected = 0;
+	    for(int runs = 0; runs <= RUN_CAP; runs++) {
+		for(int next = 0; next < size; next++) {
+		    expected += runs * halfInning[lead][runs * size + next];
+		}
+	    }
+	    return expected;
+	}
+
+	/**
+	 * @param innings How many full half-innings to play, starting from the top of the order.
+	 * @return dist[runs * size + next leadoff] after that many half-innings
+	 */
+	double[] regulation(int innings) {
+	    double[] dist = new double[(TOTAL_CAP + 1) * size];
+	    dist[0] = 1;
+	    for(int i = 0; i < innings; i++) {
+		double[] after = new double[dist.length];
+		for(int total = 0; total <= TOTAL_CAP; total++) {
+		    for(int lead = 0; lead < size; lead++) {
+			double p = dist[total * size + lead];
+			if(p == 0) {
+			    continue;
+			}
+			for(int runs = 0; runs <= RUN_CAP; runs++) {
+			    int newTotal = Math.min(total + runs, TOTAL_CAP);
+			    for(int next = 0; next < size; next++) {
+				after[newTotal * size + next] += p * halfInning[lead][runs * size + next];
+			    }
+			}
+		    }
+		}
+		dist = after;
+	    }
+	    return dist;
+	}
+    }
+
+    //The exact outcome of a game between two lineups
+    static class GameOdds {
+	double awayWin, homeWin, awayRuns, homeRuns, extraInnings;
+    }
+
+    /**
+     * Plays out every possible game between two lineups at once, following playGame: eight full innings,
+     * then a ninth and as many extra innings as it takes, where the bottom half is skipped if the home team is ahead and ends on a walk-off.
+     * @param away The away team.
+     * @param home The home team.
+     * @return The chance of each team winning and each team's expected runs.
+     */
+    static GameOdds game(Lineup away, Lineup home) {
+	GameOdds odds = new GameOdds();
+	double[] awayReg = away.regulation(8), homeReg = home.regulation(8);
+	//state[(diff + TOTAL_CAP) * away.size * home.size + awayLead * home.size + homeLead], where diff is away runs minus home runs
+	int diffs = 2 * TOTAL_CAP + 1, leads = away.size * home.size;
+	double[] state = new double[diffs * leads];
+	for(int a = 0; a <= TOTAL_CAP; a++) {
+	    for(int la = 0; la < away.size; la++) {
+		double pa = awayReg[a * away.size + la];
+		if(pa == 0) {
+		    continue;
+		}
+		odds.awayRuns += pa * a;
+		for(int h = 0; h <= TOTAL_CAP; h++) {
+		    for(int lh = 0; lh < home.size; lh++) {
+			double ph = homeReg[h * home.size + lh];
+			state[(a - h + TOTAL_CAP) * leads + la * home.size + lh] += pa * ph;
+		    }
+		}
+	    }
+	}
+	for(int h = 0; h <= TOTAL_CAP; h++) {
+	    for(int lh = 0; lh < home.size; lh++) {
+		odds.homeRuns += homeReg[h * home.size + lh] * h;
+	    }
+	}
+	boolean firstExtra = true;
+	double tied = 1;
+	while(tied > EPSILON) {
+	    //top half: always played
+	    double[] afterTop = new double[state.length];
+	    for(int diff = 0; diff < diffs; diff++) {
+		for(int la = 0; la < away.size; la++) {
+		    for(int lh = 0; lh < home.size; lh++) {
+			double p = state[diff * leads + la * home.size + lh];
+			if(p == 0) {
+			    continue;
+			}
+			for(int runs = 0; runs <= RUN_CAP; runs++) {
+			    int newDiff = Math.min(diff + runs, diffs - 1);
+			    for(int next = 0; next < away.size; next++) {
+				double pr = p * away.halfInning[la][runs * away.size + next];
+				afterTop[newDiff * leads + next * home.size + lh] += pr;
+				odds.awayRuns += pr * runs;
+			    }
+			}
+		    }
+		}
+	    }
+	    //bottom half: only played if the home team isn't ahead, and it ends the moment they are
+	    double[] afterBottom = new double[state.length];
+	    tied = 0;
+	    for(int diff = 0; diff < diffs; diff++) {
+		int awayLead = diff - TOTAL_CAP;
+		for(int la = 0; la < away.size; la++) {
+		    for(int lh = 0; lh < home.size; lh++) {
+			double p = afterTop[diff * leads + la * home.size + lh];
+			if(p == 0) {
+			    continue;
+			}
+			if(awayLead < 0) {
+			    odds.homeWin += p;
+			    continue;
+			}
+			if(awayLead <= RUN_CAP) {
+			    odds.homeWin += p * home.walkOffChance[lh][awayLead];
+			    odds.homeRuns += p * home.walkOffRuns[lh][awayLead];
+			}
+			for(int runs = 0; runs <= Math.min(awayLead, RUN_CAP); runs++) {
+			    for(int next = 0; next < home.size; next++) {
+				double pr = p * home.halfInning[lh][runs * home.size + next];
+				odds.homeRuns += pr * runs;
+				if(runs == awayLead) {
+				    afterBottom[TOTAL_CAP * leads + la * home.size + next] += pr;
+				    tied += pr;
+				}
+				else {
+				    odds.awayWin += pr;
+				}
+			    }
+			}
+		    }
+		}
+	    }
+	    if(firstExtra) {
+		odds.extraInnings = tied;
+		firstExtra = false;
+	    }
+	    state = afterBottom;
+	}
+	return odds;
+    }
+
+    /**
+     * The chance of a team winning more than, exactly or fewer than half of its games, when it plays homeGames games at home and awayGames on the road.
+     * @param homeWin The chance of the team winning a home game.
+     * @param homeGames The number of home games.
+     * @param awayWin The chance of the team winning a road game.
+     * @param awayGames The number of road games.
+     * @return dist[w], the chance of exactly w wins.
+     */
+    static double[] seasonWins(double homeWin, int homeGames, double awayWin, int awayGames) {
+	double[] dist = new double[]{1};
+	for(int g = 0; g < homeGames + awayGames; g++) {
+	    double p = (g < homeGames) ? homeWin : awayWin;
+	    double[] after = new double[dist.length + 1];
+	    for(int w = 0; w < dist.length; w++) {
+		after[w] += dist[w] * (1 - p);
+		after[w + 1] += dist[w] * p;
+	    }
+	    dist = after;
+	}
+	return dist;
+    }
+}
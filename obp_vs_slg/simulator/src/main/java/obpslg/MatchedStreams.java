@@ -0,0 +1,110 @@
+package obpslg;
+
+/**
+ * The random numbers of a season played in a group of paired seasons, to estimate the gap between the teams with fewer seasons.<br>
+ * Instead of one stream for the whole season, every plate appearance gets its own numbers, picked by the game, by which of two streams
+ * the batting team is using and by how many times that team has batted in the game. So the numbers a plate appearance and its sub-rolls
+ * (double play, productive out, infield hit) see don't depend on anything that happened before it.<br>
+ * With common random numbers, the second season of a pair gives each team the stream the other team had in the first, so the n-th plate appearance of a game
+ * sees the same numbers for both teams, and luck that favors one team in one season favors the other in the next. With antithetic seasons, the second season
+ * of a pair uses the complement of every number of the first, so a lucky season is paired with an unlucky one. Either way every season on its own
+ * is still an ordinary season with independent, uniform random numbers, so the mean gap is unchanged and only its variance goes down.<br>
+ * The source is also the games' observer, which is how it knows when a plate appearance or half-inning ends.
+ */
+final class MatchedStreams implements RandomSource, PlayObserver {
+
+    //How seasons are grouped
+    enum Mode {
+	//pairs of seasons with the teams' streams swapped
+	COMMON(2),
+	//pairs of seasons with every number complemented
+	ANTITHETIC(2),
+	//groups of four: as is, swapped, complemented, and both
+	BOTH(4);
+
+	final int groupSize;
+
+	Mode(int groupSizeIn) {
+	    groupSize = groupSizeIn;
+	}
+    }
+
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+    //the keys of the streams the first and second teams use this season
+    private final long firstKey, secondKey;
+    //all ones if every number is complemented, zero otherwise
+    private final long flip;
+    //the keys of the away and home teams' streams in this game, and how many times each has batted
+    private final long[] gameKeys = new long[2];
+    private final int[] pas = new int[2];
+    private int half;
+    private long key, counter;
+    private PlayObserver observer;
+
+    /**
+     * @param mode How seasons are grouped.
+     * @param masterSeed The seed of the run.
+     * @param season The season, from 1. Seasons 1 through groupSize are the first group, and so on.
+     */
+    public MatchedStreams(Mode mode, long masterSeed, int season) {
+	int group = (season - 1) / mode.groupSize, member = (season - 1) % mode.groupSize;
+	long groupSeed = ObpSlgSim.seasonSeed(masterSeed, group + 1);
+	boolean swap = mode != Mode.ANTITHETIC && (member & 1) != 0;
+	boolean complement = (mode == Mode.ANTITHETIC) ? (member & 1) != 0 : (mode == Mode.BOTH && (member & 2) != 0);
+	long x = RandomSource.mix64(groupSeed ^ 1), y = RandomSource.mix64(groupSeed ^ 2);
+	firstKey = swap ? y : x;
+	secondKey = swap ? x : y;
+	flip = complement ? -1L : 0;
+    }
+
+    /**
+     * Gets ready for the first plate appearance of a game.
+     * @param game The game of the season, from 1.
+     * @param firstTeamAway Whether the first team is the away team.
+     * @param observerIn Told about every plate appearance and inning as well. May be null.
+     */
+    public void startGame(int game, boolean firstTeamAway, PlayObserver observerIn) {
+	gameKeys[0] = RandomSource.mix64((firstTeamAway ? firstKey : secondKey) + GOLDEN * game);
+	gameKeys[1] = RandomSource.mix64((firstTeamAway ? secondKey : firstKey) + GOLDEN * game);
+	pas[0] = 0;
+	pas[1] = 0;
+	half = 0;
+	observer = observerIn;
+	startPA();
+    }
+
+    //every plate appearance has room for 65536 numbers before it runs into the next one's, and draws 1 or 2 unless nextInt rejects one
+    private void startPA() {
+	key = gameKeys[half];
+	counter = (long)pas[half] << 16;
+    }
+
+    @Override
+    public long nextLong() {
+	return flip ^ RandomSource.mix64(key + GOLDEN * ++counter);
+    }
+
+    @Override
+    public RandomSource split() {
+	return new Counter(nextLong());
+    }
+
+    @Override
+    public void plateAppearance(int batter, int stateBefore, int event, int stateAfter, int runsScored, boolean walkOff) {
+	if(observer != null) {
+	    observer.plateAppearance(batter, stateBefore, event, stateAfter, runsScored, walkOff);
+	}
+	pas[half]++;
+	startPA();
+    }
+
+    @Override
+    public void inningOver(int runs) {
+	if(observer != null) {
+	    observer.inningOver(runs);
+	}
+	half ^= 1;
+	startPA();
+    }
+}
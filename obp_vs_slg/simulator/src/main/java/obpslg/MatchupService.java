@@ -0,0 +1,315 @@
+package obpslg;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A long-running local HTTP service that answers matchup questions with the summary a run with --summary would print, as JSON.<br>
+ * GET /matchup takes the two players' stat lines, the seed, the number of seasons and the usual run settings as query parameters, for example
+ * /matchup?highObp=12087,467,6729,1576,2643,438,187,47&amp;highSlg=3614,747,1626,322,519,221,7,172&amp;seasons=10000&amp;seed=7.
+ * The JVM stays warm between questions, requests are handled on virtual threads when the JVM has them (and ordinary ones otherwise),
+ * and the seasons of every request are simulated on one shared pool of --threads threads, so a burst of requests can't oversubscribe the machine.<br>
+ * The seasons of recent matchups are kept in an LRU cache, in the binary results format, keyed by everything they depend on except the number of seasons.
+ * Since a season only depends on the seed and its number, a request for a matchup that has been asked about before replays the seasons it already has
+ * and only simulates the ones after them, so a repeated question costs nothing and a longer one only costs the extra seasons.
+ * The answer is the same as a fresh run's either way.
+ */
+class MatchupService {
+
+    //One matchup's seasons so far, in order
+    private static class Entry {
+	//a lock rather than a monitor, since a virtual thread that blocks holding a monitor pins its carrier thread (before Java 24)
+	final ReentrantLock lock = new ReentrantLock();
+	final Seasons seasons = new Seasons();
+	//how many seasons there are, under the lock, and how many of them are counted in cachedSeasons, under the cache's monitor
+	int count, accounted;
+    }
+
+    //The seasons' bytes, which can be read back without copying them
+    private static class Seasons extends ByteArrayOutputStream {
+	ByteArrayInputStream reader() {
+	    return new ByteArrayInputStream(buf, 0, count);
+	}
+    }
+
+    //the most seasons one request can ask for, which takes minutes
+    static final int MAX_SEASONS = 10000000;
+
+    private final int threads;
+    private final long capacity;
+    private final ExecutorService compute;
+    //access order, so the first entry is the least recently used
+    private final LinkedHashMap<String, Entry> cache = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    private long cachedSeasons;
+
+    /**
+     * @param threadsIn How many seasons are simulated at once, over all requests.
+     * @param capacityIn How many seasons the cache holds, over all matchups.
+     */
+    public MatchupService(int threadsIn, long capacityIn) {
+	threads = threadsIn;
+	capacity = capacityIn;
+	compute = Executors.newFixedThreadPool(threads);
+    }
+
+    /**
+     * Starts serving on the loopback interface. The server's threads keep the JVM running.
+     * @param port The port to listen on.
+     * @return The server.
+     */
+    public HttpServer start(int port) throws IOException {
+	HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+	server.createContext("/matchup", this::handle);
+	server.setExecutor(requestExecutor());
+	server.start();
+	return server;
+    }
+
+    //a virtual thread per request where the JVM has them (Java 21 and later), looked up reflectively so this still runs on Java 8
+    private static ExecutorService requestExecutor() {
+	try {
+	    return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+	}
+	catch(ReflectiveOperationException e) {
+	    return Executors.newCachedThreadPool();
+	}
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+	int status = 200;
+	String body;
+	try {
+	    body = answer(parseQuery(exchange.getRequestURI().getRawQuery()));
+	}
+	catch(IllegalArgumentException e) {
+	    status = 400;
+	    body = error(e.getMessage());
+	}
+	catch(InterruptedException | ExecutionException | IOException | RuntimeException e) {
+	    //anything else is the server's fault, so it still gets an answer and the stack trace goes to the server's log
+	    e.printStackTrace();
+	    status = 500;
+	    Throwable cause = (e instanceof ExecutionException && e.getCause() != null) ? e.getCause() : e;
+	    body = error("The simulation failed: " + cause);
+	}
+	byte[] bytes = (body + "\n").getBytes(StandardCharsets.UTF_8);
+	exchange.getResponseHeaders().set("Content-Type", "application/json");
+	exchange.sendResponseHeaders(status, bytes.length);
+	try(OutputStream out = exchange.getResponseBody()) {
+	    out.write(bytes);
+	}
+    }
+
+    private static String error(String message) {
+	return "{\"error\":\"" + String.valueOf(message).replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + "\"}";
+    }
+
+    private static Map<String, String> parseQuery(String query) throws UnsupportedEncodingException {
+	Map<String, String> params = new HashMap<String, String>();
+	if(query != null) {
+	    for(String pair : query.split("&")) {
+		int equals = pair.indexOf('=');
+		if(equals > 0) {
+		    params.put(URLDecoder.decode(pair.substring(0, equals), "UTF-8"), URLDecoder.decode(pair.substring(equals + 1), "UTF-8"));
+		}
+	    }
+	}
+	return params;
+    }
+
+    private static ObpSlgSim.Player player(String statLine) {
+	String[] fields = statLine.split(",");
+	if(fields.length != 8) {
+	    throw new IllegalArgumentException("A stat line is PA,SO,outs in play,BB+HBP,1B,2B,3B,HR");
+	}
+	int[] stats = new int[8];
+	for(int i = 0; i < 8; i++) {
+	    stats[i] = Integer.parseInt(fields[i].trim());
+	}
+	if(stats[1] + stats[2] + stats[3] + stats[4] + stats[5] + stats[6] + stats[7] != stats[0]) {
+	    throw new IllegalArgumentException("The outcomes of " + statLine + " don't add up to its plate appearances");
+	}
+	for(int stat : stats) {
+	    if(stat < 0) {
+		throw new IllegalArgumentException("The stat line " + statLine + " has a negative count");
+	    }
+	}
+	if(stats[1] + stats[2] == 0) {
+	    //the simulation would never finish an inning
+	    throw new IllegalArgumentException("The stat line " + statLine + " never makes an out");
+	}
+	return new ObpSlgSim.Player(stats[0], stats[1], stats[2], stats[3], stats[4], stats[5], stats[6], stats[7]);
+    }
+
+    //a constant can be given to check that the server uses the value the caller expects, but it can't be changed
+    private static void checkConstant(Map<String, String> params, String name, double value) {
+	if(params.containsKey(name) && Double.parseDouble(params.get(name)) != value) {
+	    throw new IllegalArgumentException("The simulator's " + name + " is " + value + " and can't be changed per request");
+	}
+    }
+
+    /**
+     * Answers one matchup question.
+     * @param params The query parameters. Everything but seed has a default: Collins and Devers, 1 season and the command line's defaults.
+     * @return The summary as a JSON object.
+     */
+    String answer(Map<String, String> params) throws IOException, InterruptedException, ExecutionException {
+	if(!params.containsKey("seed")) {
+	    throw new IllegalArgumentException("The seed is required, since the results (and the cache) depend on it");
+	}
+	long seed = Long.parseLong(params.get("seed"));
+	int seasons = Integer.parseInt(params.getOrDefault("seasons", "1"));
+	ObpSlgSim.Player highObp = params.containsKey("highObp") ? player(params.get("highObp")) : ObpSlgSim.eddieCollins();
+	ObpSlgSim.Player highSlg = params.containsKey("highSlg") ? player(params.get("highSlg")) : ObpSlgSim.rafaelDevers();
+	OutcomeSampler.Kind sampler = OutcomeSampler.Kind.valueOf(params.getOrDefault("sampler", "table").toUpperCase());
+	RandomSource.Kind rng = RandomSource.Kind.valueOf(params.getOrDefault("rng", "xoshiro").toUpperCase());
+	boolean batchEngine = params.getOrDefault("engine", "scalar").equals("batch");
+	MatchedStreams.Mode pairing = params.containsKey("varianceReduction") ? MatchedStreams.Mode.valueOf(params.get("varianceReduction").toUpperCase()) : null;
+	checkConstant(params, "po", ObpSlgSim.productiveOutRatio);
+	checkConstant(params, "dp", ObpSlgSim.doublePlayRatio);
+	checkConstant(params, "ih", ObpSlgSim.infieldHitRatio);
+	if(seasons > MAX_SEASONS) {
+	    throw new IllegalArgumentException("seasons can be at most " + MAX_SEASONS);
+	}
+	if(seasons < 1 || (pairing != null && (batchEngine || seasons % pairing.groupSize != 0))) {
+	    throw new IllegalArgumentException("seasons has to be positive, and variance reduction needs the scalar engine and whole groups of seasons");
+	}
+	String key = statLine(highObp) + " vs " + statLine(highSlg) + " po=" + ObpSlgSim.productiveOutRatio + " dp=" + ObpSlgSim.doublePlayRatio
+	    + " ih=" + ObpSlgSim.infieldHitRatio + " seed=" + seed + " " + sampler + " " + rng + " " + (batchEngine ? "batch" : "scalar") + " " + pairing;
+	long start = System.nanoTime();
+	//more seasons than the whole cache holds aren't kept, though the ones already cached are still used
+	boolean keep = seasons <= capacity;
+	Entry entry;
+	synchronized(cache) {
+	    entry = cache.get(key);
+	    if(entry == null && keep) {
+		entry = new Entry();
+		cache.put(key, entry);
+	    }
+	}
+	if(entry == null) {
+	    entry = new Entry();
+	}
+	final StreamingStats stats = new StreamingStats();
+	if(pairing != null) {
+	    stats.setGroupSize(pairing.groupSize);
+	}
+	int cached, added;
+	//one request at a time extends a matchup, and the others asking about it wait for it and then find its seasons cached
+	entry.lock.lock();
+	try {
+	    cached = Math.min(entry.count, seasons);
+	    if(cached > 0) {
+		ResultWriter.BinaryReader reader = new ResultWriter.BinaryReader(entry.seasons.reader());
+		for(int i = 0; i < cached; i++) {
+		    stats.add(reader.read());
+		}
+	    }
+	    added = seasons - cached;
+	    if(added > 0) {
+		SeasonRunner runner = new SeasonRunner(seed, threads, sampler, rng, highObp, "High OBP", highSlg, "High SLG");
+		if(batchEngine) {
+		    runner.useBatchEngine(BatchSimulator.DEFAULT_LANES);
+		}
+		if(pairing != null) {
+		    runner.usePairing(pairing);
+		}
+		//only kept if every new season is simulated
+		ByteArrayOutputStream more = new ByteArrayOutputStream();
+		final ResultWriter.Binary writer = keep ? new ResultWriter.Binary(more, entry.count == 0) : null;
+		runner.run(cached + 1, seasons, result -> {
+			if(writer != null) {
+			    writer.write(result);
+			}
+			stats.add(result);
+			return true;
+		    }, compute);
+		if(keep) {
+		    writer.flush();
+		    more.writeTo(entry.seasons);
+		    entry.count = seasons;
+		}
+	    }
+	}
+	finally {
+	    entry.lock.unlock();
+	}
+	if(added > 0 && keep) {
+	    evict(key, entry);
+	}
+	long millis = (System.nanoTime() - start) / 1000000;
+	return toJson(stats, params.getOrDefault("highObpName", "High OBP"), params.getOrDefault("highSlgName", "High SLG"), cached, added, millis);
+    }
+
+    //counts the entry's new seasons if it is still cached and drops the least recently used matchups until the cache fits again, never the one just asked about
+    private void evict(String key, Entry entry) {
+	synchronized(cache) {
+	    //an entry dropped while it was being extended was only ever counted with its old seasons, which were taken off when it was dropped
+	    if(cache.get(key) == entry) {
+		cachedSeasons += entry.count - entry.accounted;
+		entry.accounted = entry.count;
+	    }
+	    Iterator<Map.Entry<String, Entry>> eldest = cache.entrySet().iterator();
+	    while(cachedSeasons > capacity && eldest.hasNext()) {
+		Map.Entry<String, Entry> next = eldest.next();
+		if(!next.getKey().equals(key)) {
+		    cachedSeasons -= next.getValue().accounted;
+		    eldest.remove();
+		}
+	    }
+	}
+    }
+
+    private static String statLine(ObpSlgSim.Player player) {
+	StringBuilder line = new StringBuilder();
+	for(int stat : player.getStatLine()) {
+	    line.append((line.length() == 0) ? "" : "/").append(stat);
+	}
+	return line.toString();
+    }
+
+    private static String toJson(StreamingStats stats, String highObpName, String highSlgName, int cached, int added, long millis) {
+	long seasons = stats.getSeasons(), obpMore = stats.winGap.countAtLeast(1), even = stats.winGap.countAtLeast(0) - obpMore;
+	StringBuilder json = new StringBuilder();
+	json.append("{\"seasons\":").append(seasons).append(",\"cachedSeasons\":").append(cached).append(",\"simulatedSeasons\":").append(added)
+	    .append(",\"millis\":").append(millis).append(",\"highObpMoreWins\":").append(obpMore).append(",\"evenWins\":").append(even)
+	    .append(",\"highSlgMoreWins\":").append(seasons - obpMore - even).append(",\"wpctGap\":").append(stats.getWpctGap())
+	    .append(",\"wpctGapHalfWidth\":").append(number(stats.getWpctGapHalfWidth())).append(",\"varianceReduction\":").append(number(stats.getVarianceReduction()))
+	    .append(",\"highObp\":");
+	appendTeam(json, stats.highObp, highObpName);
+	json.append(",\"highSlg\":");
+	appendTeam(json, stats.highSlg, highSlgName);
+	return json.append('}').toString();
+    }
+
+    //JSON has no infinity, which is the half-width of a confidence interval from one season
+    private static String number(double value) {
+	return (Double.isInfinite(value) || Double.isNaN(value)) ? "null" : Double.toString(value);
+    }
+
+    private static void appendTeam(StringBuilder json, StreamingStats.TeamStats team, String name) {
+	json.append("{\"name\":\"").append(name.replace("\\", "\\\\").replace("\"", "\\\"")).append("\",\"wins\":").append(team.wins.getMean())
+	    .append(",\"winsHalfWidth\":").append(number(team.wins.getHalfWidth())).append(",\"winsMedian\":").append(team.wins.getQuantile(0.5))
+	    .append(",\"runs\":").append(team.runs.getMean()).append(",\"runsHalfWidth\":").append(number(team.runs.getHalfWidth()))
+	    .append(",\"ba\":").append(team.ba.getMean() / 1000).append(",\"obp\":").append(team.obp.getMean() / 1000)
+	    .append(",\"slg\":").append(team.slg.getMean() / 1000).append(",\"ops\":").append(team.ops.getMean() / 1000).append('}');
+    }
+}
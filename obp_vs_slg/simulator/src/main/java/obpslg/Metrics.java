@@ -0,0 +1,302 @@
+package obpslg;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counts what the simulation is doing while it runs, cheaply enough to leave on all the time.<br>
+ * The counters are plain fields of each thread's GameState, which only that thread ever writes, so counting costs a few additions per inning
+ * and no synchronization at all. Reading them adds up every thread's counters, so a reading can be a game or two behind, which doesn't matter for watching a run.
+ * A thread that has ended can't count anything more, so its counters are folded into one running total and let go, which keeps the list short
+ * when every run (or every pair of --pairs) starts a new pool of threads.<br>
+ * The totals can be read through JMX (as obpslg:type=Simulation, e.g. in JConsole) and printed as a progress line every so often.
+ */
+class Metrics {
+
+    //the last bucket of each histogram, which also counts everything past it
+    static final int MAX_INNINGS = 30, MAX_EXTRA_INNING_RUNS = 15;
+
+    //The JMX view of the counters. Everything is since the first game of the run.
+    public interface SimulationMXBean {
+	long getSeasons();
+	long getGames();
+	long getPlateAppearances();
+	double getGamesPerSecond();
+	double getPlateAppearancesPerSecond();
+	double getInningsPerGame();
+	double getExtraInningRate();
+	double getWalkOffRate();
+	double getDoublePlaysPerGame();
+	double getRunsPerExtraInning();
+	long[] getInningsHistogram();
+	long[] getExtraInningRunsHistogram();
+    }
+
+    //A reading of every thread's counters added up
+    static class Snapshot implements SimulationMXBean {
+	final long nanos;
+	long seasons, games, plateAppearances, innings, extraInningGames, walkOffs, doublePlays;
+	final long[] inningsHistogram = new long[MAX_INNINGS + 1], extraInningRuns = new long[MAX_EXTRA_INNING_RUNS + 1];
+
+	Snapshot(long nanosIn) {
+	    nanos = nanosIn;
+	}
+
+	//adds one thread's counters
+	void add(ObpSlgSim.GameState game) {
+	    seasons += game.seasons;
+	    games += game.games;
+	    plateAppearances += game.plateAppearances;
+	    innings += game.inningsPlayed;
+	    extraInningGames += game.extraInningGames;
+	    walkOffs += game.walkOffs;
+	    doublePlays += game.doublePlays;
+	    add(inningsHistogram, game.inningsHistogram);
+	    add(extraInningRuns, game.extraInningRuns);
+	}
+
+	//adds another snapshot's counters
+	void add(Snapshot other) {
+	    seasons += other.seasons;
+	    games += other.games;
+	    plateAppearances += other.plateAppearances;
+	    innings += other.innings;
+	    extraInningGames += other.extraInningGames;
+	    walkOffs += other.walkOffs;
+	    doublePlays += other.doublePlays;
+	    add(inningsHistogram, other.inningsHistogram);
+	    add(extraInningRuns, other.extraInningRuns);
+	}
+
+	private static void add(long[] total, long[] counts) {
+	    for(int i = 0; i < total.length; i++) {
+		total[i] += counts[i];
+	    }
+	}
+
+	//a rate per second of a count over the time from an earlier snapshot to this one
+	private double perSecond(long count, Snapshot since) {
+	    return (nanos == since.nanos) ? 0 : count * 1e9 / (nanos - since.nanos);
+	}
+
+	private double perGame(long count) {
+	    return (games == 0) ? 0 : (double)count / games;
+	}
+
+	public long getSeasons() {
+	    return seasons;
+	}
+
+	public long getGames() {
+	    return games;
+	}
+
+	public long getPlateAppearances() {
+	    return plateAppearances;
+	}
+
+	public double getGamesPerSecond() {
+	    return perSecond(games, START);
+	}
+
+	public double getPlateAppearancesPerSecond() {
+	    return perSecond(plateAppearances, START);
+	}
+
+	public double getInningsPerGame() {
+	    return perGame(innings);
+	}
+
+	public double getExtraInningRate() {
+	    return perGame(extraInningGames);
+	}
+
+	public double getWalkOffRate() {
+	    return perGame(walkOffs);
+	}
+
+	public double getDoublePlaysPerGame() {
+	    return perGame(doublePlays);
+	}
+
+	public double getRunsPerExtraInning() {
+	    long halves = 0, runs = 0;
+	    for(int i = 0; i <= MAX_EXTRA_INNING_RUNS; i++) {
+		halves += extraInningRuns[i];
+		runs += i * extraInningRuns[i];
+	    }
+	    return (halves == 0) ? 0 : (double)runs / halves;
+	}
+
+	/**
+	 * @return How many games went each number of innings, from 0 to MAX_INNINGS or more
+	 */
+	public long[] getInningsHistogram() {
+	    return inningsHistogram.clone();
+	}
+
+	/**
+	 * @return How many extra half-innings scored each number of runs, from 0 to MAX_EXTRA_INNING_RUNS or more
+	 */
+	public long[] getExtraInningRunsHistogram() {
+	    return extraInningRuns.clone();
+	}
+
+	/**
+	 * @param last The previous progress line's snapshot, for the current speeds.
+	 * @return A one-line summary of the run so far.
+	 */
+	public String progressLine(Snapshot last) {
+	    return String.format("[%6.0fs] %,d seasons, %,d games (%,.0f/s), %,d PA (%,.0f/s), %.2f innings/game, %.1f%% extra innings, %.2f runs/extra half-inning, %.1f%% walk-offs, %.2f DP/game",
+				 (nanos - START.nanos) / 1e9, seasons, games, perSecond(games - last.games, last), plateAppearances, perSecond(plateAppearances - last.plateAppearances, last),
+				 getInningsPerGame(), 100 * getExtraInningRate(), getRunsPerExtraInning(), 100 * getWalkOffRate(), getDoublePlaysPerGame());
+	}
+    }
+
+    //The JMX bean, which reads the counters every time it's asked
+    private static class Live implements SimulationMXBean {
+	public long getSeasons() {
+	    return read().getSeasons();
+	}
+
+	public long getGames() {
+	    return read().getGames();
+	}
+
+	public long getPlateAppearances() {
+	    return read().getPlateAppearances();
+	}
+
+	public double getGamesPerSecond() {
+	    return read().getGamesPerSecond();
+	}
+
+	public double getPlateAppearancesPerSecond() {
+	    return read().getPlateAppearancesPerSecond();
+	}
+
+	public double getInningsPerGame() {
+	    return read().getInningsPerGame();
+	}
+
+	public double getExtraInningRate() {
+	    return read().getExtraInningRate();
+	}
+
+	public double getWalkOffRate() {
+	    return read().getWalkOffRate();
+	}
+
+	public double getDoublePlaysPerGame() {
+	    return read().getDoublePlaysPerGame();
+	}
+
+	public double getRunsPerExtraInning() {
+	    return read().getRunsPerExtraInning();
+	}
+
+	public long[] getInningsHistogram() {
+	    return read().getInningsHistogram();
+	}
+
+	public long[] getExtraInningRunsHistogram() {
+	    return read().getExtraInningRunsHistogram();
+	}
+    }
+
+    //A thread's game state and the thread, to tell when it can't count any more
+    private static class Counter {
+	final Thread owner;
+	final ObpSlgSim.GameState game;
+
+	Counter(Thread ownerIn, ObpSlgSim.GameState gameIn) {
+	    owner = ownerIn;
+	    game = gameIn;
+	}
+    }
+
+    //the counters of the threads still running, and everything the ended ones counted
+    private static final List<Counter> THREADS = new ArrayList<Counter>();
+    private static final Snapshot ENDED = new Snapshot(0);
+    private static final Snapshot START = new Snapshot(System.nanoTime());
+
+    private Metrics() {}
+
+    /**
+     * Makes the current thread's game state count towards the totals.
+     * @param game A game state only the current thread uses.
+     * @return The same game state.
+     */
+    static synchronized ObpSlgSim.GameState register(ObpSlgSim.GameState game) {
+	foldEnded();
+	THREADS.add(new Counter(Thread.currentThread(), game));
+	return game;
+    }
+
+    //moves the counters of threads that have ended into ENDED; seeing that a thread has ended also makes everything it wrote visible
+    private static void foldEnded() {
+	for(Iterator<Counter> i = THREADS.iterator(); i.hasNext();) {
+	    Counter counter = i.next();
+	    if(!counter.owner.isAlive()) {
+		ENDED.add(counter.game);
+		i.remove();
+	    }
+	}
+    }
+
+    /**
+     * @return Every thread's counters added up, as of now
+     */
+    static synchronized Snapshot read() {
+	foldEnded();
+	Snapshot total = new Snapshot(System.nanoTime());
+	total.add(ENDED);
+	for(Counter counter : THREADS) {
+	    total.add(counter.game);
+	}
+	return total;
+    }
+
+    /**
+     * @return How many threads' counters are being kept apart, which is the number of threads that have simulated anything and are still running
+     */
+    static synchronized int liveThreads() {
+	foldEnded();
+	return THREADS.size();
+    }
+
+    /**
+     * Makes the counters readable through JMX as obpslg:type=Simulation.
+     */
+    static void registerMBean() throws JMException {
+	ManagementFactory.getPlatformMBeanServer().registerMBean(new Live(), new ObjectName("obpslg:type=Simulation"));
+    }
+
+    /**
+     * Prints a progress line every so often on a background thread, which doesn't keep the JVM running.
+     * @param seconds How often to print.
+     * @param out Where to print.
+     */
+    static void printProgress(int seconds, final PrintStream out) {
+	ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "progress");
+		thread.setDaemon(true);
+		return thread;
+	    });
+	final Snapshot[] last = {START};
+	timer.scheduleAtFixedRate(() -> {
+		Snapshot now = read();
+		out.println(now.progressLine(last[0]));
+		last[0] = now;
+	    }, seconds, seconds, TimeUnit.SECONDS);
+    }
+}
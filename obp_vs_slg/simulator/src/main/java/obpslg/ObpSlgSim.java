@@ -0,0 +1,1284 @@
+package obpslg;
+
+import java.util.Random;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.Map;
+import javax.management.JMException;
+
+//all stats here are as of the end of the 2023 season
+/**
+ * This class simulates a 162-game baseball season for two different teams modeled after two different hitters.<br>
+These hitters have either the same or very similar OPS, but vastly different OBP and SLG from each other.<br>
+The purpose of this is to get a general idea of whether getting on base consistently or hitting for more power but less consistently is more important for scoring runs and winning.<br>
+Rafael Devers (active) and Eddie Collins (HOF) both have an .853 career OPS, but Eddie Collins's OBP is .424 while Rafael Devers's is .343, which makes them a perfect pair.<br>
+ */
+public class ObpSlgSim {
+
+    //the ratio of productive outs to total outs, currently the MLB league average in 2023
+    //Sacrifice flies are counted among these, so in this simulation they count against batting average and slugging percentage.
+    public static final double productiveOutRatio = 4456.0/16633;
+    //the ratio of double plays to double play opportunities, the MLB league average in 2023
+    public static final double doublePlayRatio = 3466.0/34097;
+    //the ratio of infield singles to outfield singles, the MLB league average in 2023
+    public static final double infieldHitRatio = 4480.0/26031;
+
+    private static final boolean LOG_PAS = false;
+    private static final boolean LOG_INNINGS = false;
+    private static final boolean LOG_GAMES = false;
+    
+    static class Player {
+
+	private int pa, k, oip, bbHbp, singles, doubles, triples, homers;
+	//how many times each outcome code of getPA() has happened for this player
+	private final int[] outcomeCounts = new int[7];
+	private int plateAppearances;
+	//every outcome in order, only kept if keepOutcomeLog() has been called
+	public List<Integer> outcomes;
+	private int[] thresholds;
+	private OutcomeSampler sampler;
+	/**
+	 * @param paIn The number of plate appearances
+	 * @param kIn the number of strikeouts
+	 * @param oipIn The number of outs in play: PA - BB - HBP - SO - H
+	 * @param bbHbpIn The number of walks + hit-by-pitches
+	 * @param singlesIn The number of singles
+	 * @param doublesIn The number of doubles
+	 * @param triplesIn The number of triples
+	 * @param homersIn The number of home runs
+	 */
+	public Player(int paIn, int kIn, int oipIn, int bbHbpIn, int singlesIn, int doublesIn, int triplesIn, int homersIn) {
+	    pa = paIn;
+	    k = kIn;
+	    oip = oipIn;
+	    bbHbp = bbHbpIn;
+	    singles = singlesIn;
+	    doubles = doublesIn;
+	    triples = triplesIn;
+	    homers = homersIn;
+	    thresholds = new int[7];
+	    thresholds[0] = k;
+	    thresholds[1] = thresholds[0] + oip;
+	    thresholds[2] = thresholds[1] + bbHbp;
+	    thresholds[3] = thresholds[2] + singles;
+	    thresholds[4] = thresholds[3] + doubles;
+	    thresholds[5] = thresholds[4] + triples;
+	    thresholds[6] = thresholds[5] + homers;
+	    sampler = new OutcomeSampler.Cumulative(thresholds);
+	}
+	/**
+	 * Copy constructor.
+	 * @param other The player to copy
+	 */
+	public Player(Player other) {
+	    pa = other.pa;
+	    k = other.k;
+	    oip = other.oip;
+	    bbHbp = other.bbHbp;
+	    singles = other.singles;
+	    doubles = other.doubles;
+	    triples = other.triples;
+	    homers = other.homers;
+	    thresholds = other.thresholds;
+	    sampler = other.sampler;
+	}
+
+	/**
+	 * @return This player's stat line, in the order of the constructor: PA, SO, outs in play, BB+HBP, 1B, 2B, 3B, HR
+	 */
+	public int[] getStatLine() {
+	    return new int[]{pa, k, oip, bbHbp, singles, doubles, triples, homers};
+	}
+
+	/**
+	 * @return The probability of each outcome code of getPA(), from this player's stat line
+	 */
+	public double[] getOutcomeProbabilities() {
+	    double[] probs = new double[thresholds.length];
+	    for(int i = 0; i < thresholds.length; i++) {
+		probs[i] = (double)(thresholds[i] - (i == 0 ? 0 : thresholds[i-1]))/pa;
+	    }
+	    return probs;
+	}
+
+	/**
+	 * Changes how this player's plate appearances are drawn. Every kind gives the same distribution of outcomes.
+	 * Copies made afterwards share the new sampler.
+	 * @param kind The kind of sampler to use
+	 */
+	public void setSampler(OutcomeSampler.Kind kind) {
+	    sampler = kind.build(thresholds);
+	}
+
+	/**
+	 * Makes this player remember every plate appearance outcome in order in the outcomes list, not just how many of each there were.
+	 * This costs a boxed Integer per plate appearance, so only use it when the order actually matters.
+	 */
+	public void keepOutcomeLog() {
+	    if(outcomes == null) {
+		outcomes = new ArrayList<Integer>();
+	    }
+	}
+
+	/** Gets the result of a new plate appearance for this player based on pseudorandom number generation.
+	 * @param r The source of pseudorandom numbers to draw from
+	 * @return The number corresponding to the result of a new plate appearance.
+	 * 0: strikeout
+	 * 1: out in play
+	 * 2: walk or hit-by-pitch
+	 * 3: single
+	 * 4: double
+	 * 5: triple
+	 * 6: home run
+	 */
+	public int getPA(RandomSource r) {
+	    int outcome = sampler.sample(r);
+	    if(outcome < 0) {
+		//this should never happen - if it does, ERROR!
+		return -1;
+	    }
+	    outcomeCounts[outcome]++;
+	    plateAppearances++;
+	    if(outcomes != null) {
+		outcomes.add(outcome);
+	    }
+	    return outcome;
+	}
+
+	/**
+	 * @return The number of plate appearances this player has had in the simulation
+	 */
+	public int getPAs() {
+	    return plateAppearances;
+	}
+
+	/**
+	 * @return The number of at-bats this player has had in the simulation
+	 */
+	public int getABs() {
+	    return plateAppearances - outcomeCounts[2];
+	}
+
+	/**
+	 * @param outcome The outcome code, as returned by getPA()
+	 * @return The number of times the given outcome has happened for this player
+	 */
+	public int getNumOccurrences(int outcome) {
+	    return outcomeCounts[outcome];
+	}
+
+	/**
+	 * @return The number of times this player has reached base safely
+	 */
+	public int getTimesOnBase() {
+	    return outcomeCounts[2] + getHits();
+	}
+
+	/**
+	 * @return The number of hits this player has had
+	 */
+	public int getHits() {
+	    return outcomeCounts[3] + outcomeCounts[4] + outcomeCounts[5] + outcomeCounts[6];
+	}
+
+	/**
+	 * @return The number of total bases this player has had
+	 */
+	public int getTotalBases() {
+	    return outcomeCounts[3] + 2 * outcomeCounts[4] + 3 * outcomeCounts[5] + 4 * outcomeCounts[6];
+	}
+
+	/**
+	 * @return The unrounded on-base percentage of this player
+	 */
+	private double getRawOBP() {
+	    return (double)getTimesOnBase()/plateAppearances;
+	}
+
+	/**
+	 * @return The unrounded slugging percentage of this player
+	 */
+	private double getRawSLG() {
+	    return (double)getTotalBases()/getABs();
+	}
+
+	/**
+	 * @return The on-base percentage of this player, rounded to the nearest thousandth
+	 */
+	public double getOBP() {
+	    return (double)Math.round(1000 * getRawOBP())/1000;
+	}
+
+	/**
+	 * @return the slugging percentage of this player, rounded to the nearest thousandth
+	 */
+	public double getSLG() {
+	    return (double)Math.round(1000 * getRawSLG())/1000;
+	}
+
+	/**
+	 * @return the on-base plus slugging percentage of this player, rounded to the nearest thousandth
+	 */
+	public double getOPS() {
+	    return (double)Math.round(1000 * (getRawOBP() + getRawSLG()))/1000;
+	}
+    }
+
+    static class Team {
+	public Player[] lineup;
+	public int runs;
+	public final String name;
+	public int wins, losses;
+	//running season totals, updated by recordPA() as each plate appearance happens
+	private final int[] outcomeCounts = new int[7];
+	private int pas, abs, hits, totalBases, timesOnBase;
+	/**
+	 * Creates a team with the given array of players and name.
+	 * @param players The players in their lineup order.
+	 * @param nameIn The name of the team.
+	 */
+	public Team(Player[] players, String nameIn) {
+	    name = nameIn;
+	    runs = 0;
+	    lineup = players;
+	}
+
+	//the number of bases each outcome code of Player.getPA() is worth, and whether it counts as an at-bat or a time on base
+	private static final int[] BASES = {0, 0, 0, 1, 2, 3, 4};
+	private static final int[] AT_BAT = {1, 1, 0, 1, 1, 1, 1};
+	private static final int[] ON_BASE = {0, 0, 1, 1, 1, 1, 1};
+
+	/**
+	 * Adds a plate appearance by one of this team's players to the team's season totals.
+	 * @param outcome The outcome code of the plate appearance, as returned by Player.getPA()
+	 */
+	public void recordPA(int outcome) {
+	    outcomeCounts[outcome]++;
+	    pas++;
+	    abs += AT_BAT[outcome];
+	    timesOnBase += ON_BASE[outcome];
+	    hits += AT_BAT[outcome] & ON_BASE[outcome];
+	    totalBases += BASES[outcome];
+	}
+
+	/**
+	 * @return The number of total team plate appearances
+	 */
+	public int getPAs() {
+	    return pas;
+	}
+
+	/**
+	 * @return The number of total team at-bats
+	 */
+	public int getABs() {
+	    return abs;
+	}
+
+	/**
+	 * Gets the number of times a particular occurence occurred for a team (e.g. single, double, triple, home run)
+	 * @return The number of times the given occurrence occurred for this team
+	 */
+	private int getNumOccurrences(int outcome) {
+	    return outcomeCounts[outcome];
+	}
+
+	/**
+	 * @return The number of collective strikeouts by this team
+	 */
+	public int getStrikeouts() {
+	    return getNumOccurrences(0);
+	}
+	
+	/**
+	 * @return The number of collective outs in play by this team
+	 */
+	public int getOutsInPlay() {
+	    return getNumOccurrences(1);
+	}
+
+	/**
+	 * @return The number of collective walks plus hit-by-pitches by this team
+	 */
+	public int getBbHbp() {
+	    return getNumOccurrences(2);
+	}
+
+	/**
+	 * @return The number of collective singles by this team
+	 */
+	public int getSingles() {
+	    return getNumOccurrences(3);
+	}
+
+	/**
+	 * @return The number of collective doubles by this team
+	 */
+	public int getDoubles() {
+	    return getNumOccurrences(4);
+	}
+
+	/**
+	 * @return The number of collective triples by this team
+	 */
+	public int getTriples() {
+	    return getNumOccurrences(5);
+	}
+
+	/**
+	 * @return The number of collective home runs by this team
+	 */
+	public int getHomers() {
+	    return getNumOccurrences(6);
+	}
+
+	/**
+	 * @return The number of collective times this team has reached base safely
+	 */
+	public int getTimesOnBase() {
+	    return timesOnBase;
+	}
+
+	/**
+	 * @return The number of collective hits by this team
+	 */
+	public int getHits() {
+	    return hits;
+	}
+
+	/**
+	 * @return The number of collective total bases by this team
+	 */
+	public int getTotalBases() {
+	    return totalBases;
+	}
+
+	/**
+	 * @return The collective batting average of this team
+	 */
+	public double getBA() {
+	    return (double)Math.round(1000 * (double)getHits()/getABs())/1000;
+	}
+
+	/**
+	 * @return The collective on-base percentage of this team
+	 */
+	public double getOBP() {
+	    return (double)Math.round(1000 * (double)getTimesOnBase()/getPAs())/1000;
+	}
+
+	/**
+	 * @return The collective slugging percentage of this team
+	 */
+	public double getSLG() {
+	    return (double)Math.round(1000 * (double)getTotalBases()/getABs())/1000;
+	}
+
+	/**
+	 * @return A String representing the win-loss record of this team
+	 */
+	public String getWL() {
+	    return wins + "-" + losses;
+	}
+
+	/**
+	 * @return The winning percentage of this team (wins / (wins + losses)), rounded to the nearest thousandth
+	 */
+	public double getWPCT() {
+	    double rawWpct = (double)wins/(wins+losses);
+	    return (double) Math.round(rawWpct * 1000)/1000;
+	}
+    }
+
+    //The state of the game being played: simInning and playGame write their results here instead of returning new objects,
+    //so a thread can play any number of games with the same one and not make any garbage
+    static class GameState {
+	//the inning just simulated
+	int runsScored, nextBatter;
+	//the game just played; innings is 9 unless it went to extra innings
+	int awayRuns, homeRuns, innings;
+	//running totals of everything this thread has played, for Metrics
+	long seasons, games, plateAppearances, inningsPlayed, extraInningGames, walkOffs, doublePlays;
+	//how many games went each number of innings, and how many extra half-innings scored each number of runs (the last of each counts that many or more)
+	final long[] inningsHistogram = new long[Metrics.MAX_INNINGS + 1], extraInningRuns = new long[Metrics.MAX_EXTRA_INNING_RUNS + 1];
+    }
+
+    private static final ThreadLocal<GameState> GAME_STATE = ThreadLocal.withInitial(() -> Metrics.register(new GameState()));
+
+    /**
+     * @return The game state this thread reuses for every game it plays
+     */
+    static GameState gameState() {
+	return GAME_STATE.get();
+    }
+
+    /**
+     * Simulates an inning.
+     * @param firstBatter The batter leading off this inning.
+     * @param battingTeam The batting team. Its season totals are updated with every plate appearance.
+     * @param canWalkOff Tells if there is a chance this inning could end without three outs being recorded. True iff the home team is batting in the 9th inning or later.
+     * @param downBy How many runs the batting team is trailing by. Only relevant if canWalkOff is true.
+     * @param r The source of pseudorandom numbers for the plate appearances and for double plays, productive outs and infield hits.
+     * @param observer Told about every plate appearance and the end of the inning. May be null.
+     * @param game Where the number of runs scored in the inning and the batter leading off next inning are put, as runsScored and nextBatter.
+     */
+    static void simInning(int firstBatter, Team battingTeam, boolean canWalkOff, int downBy, RandomSource r, PlayObserver observer, GameState game) {
+	Player[] team = battingTeam.lineup;
+	int state = 0;
+	int runs = 0;
+	int curBatter = firstBatter % team.length;
+	int pas = 0, doublePlays = 0;
+	while(state != BaseOutStates.INNING_OVER) {
+	    int outcome = team[curBatter].getPA(r);
+	    battingTeam.recordPA(outcome);
+	    int event = BaseOutStates.resolve(outcome, state, r, canWalkOff && downBy < runs + 1);
+	    pas++;
+	    if(event == BaseOutStates.DOUBLE_PLAY) {
+		doublePlays++;
+	    }
+	    int transition = event * BaseOutStates.STATES + state;
+	    int scored = BaseOutStates.RUNS[transition];
+	    int nextState = BaseOutStates.NEXT_STATE[transition];
+	    runs += scored;
+	    boolean walkOff = canWalkOff && downBy < runs;
+	    if(observer != null) {
+		observer.plateAppearance(curBatter, state, event, nextState, scored, walkOff);
+	    }
+	    curBatter = (curBatter + 1) % team.length;
+	    if(walkOff) {
+		game.runsScored = runs;
+		game.nextBatter = curBatter;
+		game.plateAppearances += pas;
+		game.doublePlays += doublePlays;
+		game.walkOffs++;
+		return;
+	    }
+	    state = nextState;
+	}
+	if(observer != null) {
+	    observer.inningOver(runs);
+	}
+	game.runsScored = runs;
+	game.nextBatter = curBatter;
+	game.plateAppearances += pas;
+	game.doublePlays += doublePlays;
+    }
+
+    /**
+     * Simulates a game between two teams.
+     * @param awayTeam The away team (batting first).
+     * @param homeTeam The home team (batting second).
+     * @param r The source of pseudorandom numbers for the whole game.
+     * @param observer Told about every plate appearance and inning. May be null.
+     * @param game Where the score and the number of innings played go, as awayRuns, homeRuns and innings. Its inning results are overwritten too.
+     * @return The game state it was given.
+     */
+    static GameState playGame(Team awayTeam, Team homeTeam, RandomSource r, PlayObserver observer, GameState game) {
+	int awayTeamRuns = 0, homeTeamRuns = 0;
+	int awayTeamBatter = 0, homeTeamBatter = 0;
+	int inning = 1;
+	for(; inning < 9; inning++) {
+	    if(LOG_INNINGS) {
+		System.out.println("Score: " + awayTeamRuns + " - " + homeTeamRuns);
+		System.out.println("Top " + inning + ":");
+	    }
+	    simInning(awayTeamBatter, awayTeam, false, homeTeamRuns - awayTeamRuns, r, observer, game);
+	    awayTeamRuns += game.runsScored;
+	    awayTeamBatter = game.nextBatter;
+	    if(LOG_INNINGS) {
+		System.out.println("Score: " + awayTeamRuns + " - " + homeTeamRuns);
+		System.out.println("Bottom " + inning + ":");
+	    }
+	    simInning(homeTeamBatter, homeTeam, false, awayTeamRuns - homeTeamRuns, r, observer, game);
+	    homeTeamRuns += game.runsScored;
+	    homeTeamBatter = game.nextBatter;
+	}
+	do {
+	    if(LOG_INNINGS) {
+		System.out.println("Score: " + awayTeamRuns + " - " + homeTeamRuns);
+		System.out.println("Top " + inning + ":");
+	    }
+	    simInning(awayTeamBatter, awayTeam, false, homeTeamRuns - awayTeamRuns, r, observer, game);
+	    awayTeamRuns += game.runsScored;
+	    awayTeamBatter = game.nextBatter;
+	    if(inning > 9) {
+		game.extraInningRuns[Math.min(game.runsScored, Metrics.MAX_EXTRA_INNING_RUNS)]++;
+	    }
+	    if(awayTeamRuns >= homeTeamRuns) {
+		if(LOG_INNINGS) {
+		    System.out.println("Score: " + awayTeamRuns + " - " + homeTeamRuns);
+		    System.out.println("Bottom " + inning + ":");
+		}
+		simInning(homeTeamBatter, homeTeam, true, awayTeamRuns - homeTeamRuns, r, observer, game);
+		homeTeamRuns += game.runsScored;
+		homeTeamBatter = game.nextBatter;
+		if(inning > 9) {
+		    game.extraInningRuns[Math.min(game.runsScored, Metrics.MAX_EXTRA_INNING_RUNS)]++;
+		}
+	    }
+	    inning++;
+	} while(awayTeamRuns == homeTeamRuns);
+	if(LOG_INNINGS || LOG_GAMES) {
+	    System.out.println("Final score: " + awayTeam.name + " " + awayTeamRuns + " - " + homeTeamRuns + " " + homeTeam.name + ((inning > 10)?(" in " + (inning-1) + " innings"):("")));
+	}
+	awayTeam.runs += awayTeamRuns;
+	homeTeam.runs += homeTeamRuns;
+	if(awayTeamRuns > homeTeamRuns) {
+	    awayTeam.wins++;
+	    homeTeam.losses++;
+	}
+	else {
+	    awayTeam.losses++;
+	    homeTeam.wins++;
+	}
+	game.awayRuns = awayTeamRuns;
+	game.homeRuns = homeTeamRuns;
+	game.innings = inning-1;
+	game.games++;
+	game.inningsPlayed += game.innings;
+	game.inningsHistogram[Math.min(game.innings, Metrics.MAX_INNINGS)]++;
+	if(game.innings > 9) {
+	    game.extraInningGames++;
+	}
+	return game;
+    }
+
+    //A snapshot of one team's end-of-season record and batting line
+    static class TeamSeason {
+	final String name;
+	final int wins, losses, runs;
+	final double wpct, ba, obp, slg;
+	public TeamSeason(Team team) {
+	    name = team.name;
+	    wins = team.wins;
+	    losses = team.losses;
+	    runs = team.runs;
+	    wpct = team.getWPCT();
+	    ba = team.getBA();
+	    obp = team.getOBP();
+	    slg = team.getSLG();
+	}
+	/**
+	 * Recreates a snapshot from its stats, e.g. when reading results back from a file.
+	 */
+	public TeamSeason(String nameIn, int winsIn, int lossesIn, int runsIn, double baIn, double obpIn, double slgIn) {
+	    name = nameIn;
+	    wins = winsIn;
+	    losses = lossesIn;
+	    runs = runsIn;
+	    wpct = (double)Math.round((double)wins/(wins+losses) * 1000)/1000;
+	    ba = baIn;
+	    obp = obpIn;
+	    slg = slgIn;
+	}
+
+	/**
+	 * @return The OPS of this team, computed from the rounded OBP and SLG
+	 */
+	public double getOPS() {
+	    return obp + slg;
+	}
+    }
+
+    //The results of a simulated season
+    static class SeasonResult {
+	final int season;
+	final TeamSeason highObp, highSlg;
+	//every game's score in order, from gameScore(), if the season was simulated game by game in this process
+	int[] games;
+	public SeasonResult(int seasonIn, TeamSeason highObpIn, TeamSeason highSlgIn) {
+	    season = seasonIn;
+	    highObp = highObpIn;
+	    highSlg = highSlgIn;
+	}
+    }
+
+    /**
+     * Derives the seed of a season from the master seed of the run, so that every season can be simulated on its own.
+     * Uses the SplitMix64 finalizer, so neighboring seasons get unrelated seeds.
+     * @param masterSeed The seed of the whole run.
+     * @param season The number of the season.
+     * @return The seed for that season's random number generator.
+     */
+    static long seasonSeed(long masterSeed, int season) {
+	return RandomSource.mix64(masterSeed + season * 0x9E3779B97F4A7C15L);
+    }
+
+    /**
+     * @return A new Player with Eddie Collins's career line, the high OBP hitter
+     */
+    static Player eddieCollins() {
+	return new Player(12087, 467, 6729, 1576, 2643, 438, 187, 47);
+    }
+
+    /**
+     * @return A new Player with Rafael Devers's career line, the high SLG hitter
+     */
+    static Player rafaelDevers() {
+	return new Player(3614, 747, 1626, 322, 519, 221, 7, 172);
+    }
+
+    /**
+     * Creates a team whose lineup is nine copies of one player.
+     * @param prototype The player to copy.
+     * @param name The name of the team.
+     * @return The new team.
+     */
+    static Team buildTeam(Player prototype, String name) {
+	Player[] lineup = new Player[9];
+	for(int i = 0; i < 9; i++) {
+	    lineup[i] = new Player(prototype);
+	}
+	return new Team(lineup, name);
+    }
+
+    /**
+     * Simulates a full 162-game season between a fresh high OBP team and a fresh high SLG team.
+     * The season only depends on its random numbers, so it gives the same result no matter which thread runs it.
+     * @param season The number of this season, used only for reporting.
+     * @param r The source of pseudorandom numbers for the whole season. Only this season may use it.
+     * @param sampler How the players' plate appearances are drawn.
+     * @return The results of the season.
+     */
+    static SeasonResult simSeason(int season, RandomSource r, OutcomeSampler.Kind sampler) {
+	return simSeason(season, eddieCollins(), "High OBP", rafaelDevers(), "High SLG", r, sampler, null);
+    }
+
+    /**
+     * Simulates a full 162-game season between fresh teams made of two players, the first of them on the road for the first series.
+     * @param season The number of this season, used only for reporting.
+     * @param p1 The player the first team is made of. Its sampler is changed.
+     * @param name1 The name of the first team.
+     * @param p2 The player the second team is made of. Its sampler is changed.
+     * @param name2 The name of the second team.
+     * @param r The source of pseudorandom numbers for the whole season. Only this season may use it. If it is a MatchedStreams, it is told about every game too.
+     * @param sampler How the players' plate appearances are drawn.
+     * @param playLog Where the plate appearances of the games it samples are logged. May be null.
+     * @return The results of the season, with the first team as highObp and the second as highSlg.
+     */
+    static SeasonResult simSeason(int season, Player p1, String name1, Player p2, String name2, RandomSource r, OutcomeSampler.Kind sampler, PlayLog playLog) {
+	PlayObserver observer = (LOG_PAS || LOG_INNINGS) ? new PlayObserver.Text(System.out, LOG_PAS) : null;
+	p1.setSampler(sampler);
+	p2.setSampler(sampler);
+	Team highObp = buildTeam(p1, name1), highSlg = buildTeam(p2, name2);
+	GameState game = gameState();
+	int[] scores = new int[162];
+	MatchedStreams matched = (r instanceof MatchedStreams) ? (MatchedStreams)r : null;
+	//alternate which team is at home every 3 games over the 162 game season
+	int gameNumber = 1;
+	for(int i = 0; i < 54; i++) {
+	    for(int j = 0; j < 3; j++) {
+		if(LOG_GAMES) {
+		    System.out.print("Game #" + gameNumber + ": ");
+		}
+		PlayObserver gameObserver = (playLog != null && playLog.isSampled(season, gameNumber)) ? playLog.game(season, gameNumber) : observer;
+		if(matched != null) {
+		    //it has to see every plate appearance to give the next one its numbers
+		    matched.startGame(gameNumber, 0 == i%2, gameObserver);
+		    gameObserver = matched;
+		}
+		if(0 == i%2) {
+		    playGame(highObp, highSlg, r, gameObserver, game);
+		    scores[gameNumber - 1] = gameScore(game.awayRuns, game.homeRuns, game.innings, false);
+		}
+		else {
+		    playGame(highSlg, highObp, r, gameObserver, game);
+		    scores[gameNumber - 1] = gameScore(game.homeRuns, game.awayRuns, game.innings, true);
+		}
+		gameNumber++;
+	    }
+	}
+	if(LOG_GAMES) {
+	    int seasonLength = gameNumber-1;
+	    System.out.println("The " + seasonLength + "-game season has concluded.");
+	}
+	game.seasons++;
+	SeasonResult result = new SeasonResult(season, new TeamSeason(highObp), new TeamSeason(highSlg));
+	result.games = scores;
+	return result;
+    }
+
+    /**
+     * Packs the score of a game into an int: the first team's runs in the low byte, the second team's in the next, then the innings, then 1 if the first team was at home.
+     * No team scores more than 255 runs in a game.
+     */
+    static int gameScore(int firstRuns, int secondRuns, int innings, boolean firstHome) {
+	return firstRuns | (secondRuns << 8) | (innings << 16) | ((firstHome ? 1 : 0) << 24);
+    }
+
+    /**
+     * Prints the exact expected results of the High OBP vs. High SLG matchup from the Markov chain model, instead of simulating it.
+     */
+    private static void printMarkovReport() {
+	long start = System.nanoTime();
+	MarkovEngine.Lineup highObp = new MarkovEngine.Lineup(buildTeam(eddieCollins(), "High OBP").lineup);
+	MarkovEngine.Lineup highSlg = new MarkovEngine.Lineup(buildTeam(rafaelDevers(), "High SLG").lineup);
+	MarkovEngine.GameOdds obpHome = MarkovEngine.game(highSlg, highObp), obpAway = MarkovEngine.game(highObp, highSlg);
+	//every season is 81 games at home and 81 on the road for each team
+	double[] obpWins = MarkovEngine.seasonWins(obpHome.homeWin, 81, obpAway.awayWin, 81);
+	double obpMore = 0, even = obpWins[81], slgMore = 0, expectedWins = 0;
+	for(int w = 0; w < obpWins.length; w++) {
+	    expectedWins += w * obpWins[w];
+	    if(w > 81) {
+		obpMore += obpWins[w];
+	    }
+	    else if(w < 81) {
+		slgMore += obpWins[w];
+	    }
+	}
+	double obpRuns = 81 * (obpHome.homeRuns + obpAway.awayRuns), slgRuns = 81 * (obpHome.awayRuns + obpAway.homeRuns);
+	long millis = (System.nanoTime() - start) / 1000000;
+	System.out.println("Exact results from the Markov chain model:");
+	System.out.println("Team High OBP: " + round(highObp.expectedInningRuns(0)) + " runs per inning from the top of the order, " + round(obpRuns/162) + " runs per game");
+	System.out.println("Team High SLG: " + round(highSlg.expectedInningRuns(0)) + " runs per inning from the top of the order, " + round(slgRuns/162) + " runs per game");
+	System.out.println("Team High OBP wins " + round(obpHome.homeWin) + " of its home games and " + round(obpAway.awayWin) + " of its road games");
+	System.out.println("Games going to extra innings: " + round(obpHome.extraInnings) + " with High OBP at home, " + round(obpAway.extraInnings) + " with High SLG at home");
+	System.out.println();
+	System.out.println("Average season:");
+	System.out.println("Team High OBP: " + round(expectedWins) + " wins, " + round(obpRuns) + " runs scored");
+	System.out.println("Team High SLG: " + round(162 - expectedWins) + " wins, " + round(slgRuns) + " runs scored");
+	System.out.println("Chance of Team High OBP winning at least 82 games: " + round(obpMore) + ", 81 games: " + round(even) + ", at most 80 games: " + round(slgMore));
+	System.out.println("Computed in " + millis + " ms");
+    }
+
+    /**
+     * @return The value rounded to the nearest thousandth
+     */
+    private static double round(double value) {
+	return (double)Math.round(1000 * value)/1000;
+    }
+
+    //the profiles in a file for --league, or the message of what's wrong with it and exit
+    private static Map<String, Player> readProfiles(String file) throws IOException {
+	try {
+	    return League.readProfiles(file);
+	}
+	catch(IllegalArgumentException e) {
+	    System.err.println(e.getMessage());
+	    System.exit(1);
+	    return null;
+	}
+    }
+
+    private static void usage() {
+	System.err.println("Usage: java ObpSlgSim [seasons] [--format text|csv] [--output FILE] [--from-binary FILE] [--seed S] [--threads N] [--sampler table|alias|cumulative] [--rng xoshiro|splittable|counter|jdk] [--engine scalar|batch] [--variance-reduction common|antithetic|both] [--first-season N] [--serve PORT [--cache-seasons N]] [--store DIR [--store-games]] [--query Q] [--workers N [--shard-size N] [--work-dir DIR]] [--summary] [--precision P] [--checkpoint FILE] [--progress SECONDS] [--jmx] [--play-log FILE [--play-log-sample N]] [--league FILE] [--sweep SPEC [--against SPEC] [--cache FILE]] [--batting FILE [--min-pa N] [--by-season]] [--pairs FILE [--min-ops X] [--top K]] [--optimize FILE [--lineup LIST] [--top K]] [--markov]");
+	System.err.println("  seasons   The number of seasons to simulate in this JVM. If not given, one season is simulated and printed without a season header.");
+	System.err.println("  --format  text (default) is the English report that make_csv.sh reads, csv has the columns of results.csv,");
+	System.err.println("            jsonl is one JSON object per season and binary is a compact fixed-width format for very large runs.");
+	System.err.println("  --output  The file to write the results to instead of standard output.");
+	System.err.println("  --from-binary FILE  Instead of simulating, read the seasons in a binary results file and write them in --format.");
+	System.err.println("  --league  Instead of the two-team matchup, play a balanced 162-game season between a team for every player profile in FILE");
+	System.err.println("            (lines of name,PA,SO,outs in play,BB+HBP,1B,2B,3B,HR) and print the standings and batting lines. --threads series run at once.");
+	System.err.println("  --sweep   Instead of the matchup, play the given seasons for every hitter profile in a grid such as obp=.300:.420:.010,slg=.450,k=.2:.3:.05");
+	System.err.println("            (obp, slg, k and hr rates, each one value or start:end:step) against a reference profile, and print a CSV line for each.");
+	System.err.println("  --against The reference profile for --sweep, like obp=.343,slg=.510. Anything not given is about the 2023 MLB average.");
+	System.err.println("  --cache   The file --sweep saves results in and reuses them from (sweep-cache.tsv by default, \"\" for none).");
+	System.err.println("  --batting Instead of simulating, read a Lahman-style batting CSV and print every career with at least --min-pa plate appearances");
+	System.err.println("            (3000 by default) as a profile file for --league. --by-season prints every season instead of careers.");
+	System.err.println("  --pairs   Instead of the usual matchup, find the hitters in a Lahman-style batting CSV with the same OPS (at least --min-ops, .850 by default)");
+	System.err.println("            and the most different OBPs, --top K pairs for each OPS (1 by default). With a season count, each pair's teams play that many seasons.");
+	System.err.println("  --optimize  Instead of the matchup, find the best batting orders of nine hitters from the profile file FILE: the nine in it, or the ones");
+	System.err.println("            --lineup lists, like \"High OBP (Collins)*5,High SLG (Devers)*4\". Every order is scored exactly, and the --top best (10 by default)");
+	System.err.println("            play the given seasons' worth of games (100 by default) against the hitters in the order given, to confirm them.");
+	System.err.println("  --markov  Instead of simulating, compute the exact expected results of the matchup with a Markov chain model.");
+	System.err.println("  --seed    The master seed every season's seed is derived from. The same seed gives the same output with any number of threads.");
+	System.err.println("  --threads How many seasons to simulate at once. Defaults to the number of available processors.");
+	System.err.println("  --sampler How plate appearance outcomes are drawn. All give the same distribution; table (default) and cumulative also use the same random numbers.");
+	System.err.println("  --rng     The pseudorandom number generator each season uses. xoshiro (xoshiro256**) is the default.");
+	System.err.println("  --engine  scalar (default) simulates every season on its own. batch plays hundreds of seasons in lockstep in primitive arrays, which is");
+	System.err.println("            much faster for big runs. It gives the same distribution of results but different seasons for a seed, and ignores --rng and --sampler.");
+	System.err.println("  --variance-reduction  Play the seasons in groups with matched random numbers, so luck cancels out and the gap between the teams");
+	System.err.println("            is known as precisely with fewer seasons: common swaps the teams' numbers in every other season, antithetic complements them,");
+	System.err.println("            and both does each in groups of four. The summary reports how much it helped. --rng is ignored.");
+	System.err.println("  --first-season  Start with this season instead of the first, e.g. to simulate part of a run somewhere else.");
+	System.err.println("  --workers Simulate the seasons in this many separate processes, --shard-size seasons (1000 by default) at a time, and merge their results.");
+	System.err.println("            The output is the same as with one process. A shard whose worker fails is run again, up to " + ShardRunner.MAX_ATTEMPTS + " times.");
+	System.err.println("  --work-dir  The directory the workers write their shards to, a new temporary one by default.");
+	System.err.println("  --serve   Instead of running, answer matchup questions over HTTP on this port of localhost until killed, with the summary as JSON:");
+	System.err.println("            /matchup?highObp=PA,SO,...,HR&highSlg=...&seasons=N&seed=S (and sampler, rng, engine, varianceReduction). The seasons of recent");
+	System.err.println("            matchups are cached, --cache-seasons of them (2000000 by default), so asking again, or for more seasons, only simulates what's new.");
+	System.err.println("  --store   Also append the seasons to the columnar results store in the directory DIR, which is created if needed.");
+	System.err.println("            --store-games makes a new store keep every game's score too (each team's runs, the innings and who was at home).");
+	System.err.println("  --query   Instead of running, answer a question about the seasons in the --store, like \"count where highSlg.wins>=95\", \"min highObp.runs\",");
+	System.err.println("            \"median highSlg.wins\", \"quantile 0.9 highObp.runs\", \"mean game.innings\" or \"histogram highSlg.wins where highObp.wins<81\".");
+	System.err.println("            Rate stats are in thousandths. Can be given more than once.");
+	System.err.println("  --summary Print a summary of all the seasons to standard error at the end, like the Results section of the README.");
+	System.err.println("  --precision  Stop once the 95% confidence interval on the gap in winning percentage between the teams is narrower than +/- P,");
+	System.err.println("            or after the given number of seasons if that comes first. Prints the summary too.");
+	System.err.println("  --checkpoint  Save the seasons to FILE as they finish. If FILE already exists, the run picks up where the one that saved it stopped,");
+	System.err.println("            with its seed, and the output is the same as if it had never stopped. The engine, --sampler and --rng have to be the same.");
+	System.err.println("  --progress  Print a line to standard error every SECONDS seconds with how many seasons, games and plate appearances have been played,");
+	System.err.println("            how fast, and the innings, extra-inning games, walk-offs and double plays per game so far.");
+	System.err.println("  --jmx     Make the same numbers readable through JMX (e.g. with JConsole) as the obpslg:type=Simulation bean.");
+	System.err.println("  --play-log  Log every plate appearance of 1 in --play-log-sample games (10000 by default) to FILE, as JSON lines if it ends in .jsonl");
+	System.err.println("            and in a compact binary format otherwise, which --from-binary turns into JSON lines. The games logged only depend on the seed.");
+	System.exit(1);
+    }
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException, IOException {
+	int numSeasons = 1;
+	boolean seasonHeaders = false;
+	ResultWriter.Format format = ResultWriter.Format.TEXT;
+	String outputFile = null, binaryInput = null, leagueFile = null;
+	String sweepSpec = null, against = null, cacheFile = "sweep-cache.tsv", battingFile = null;
+	String pairsFile = null, checkpointFile = null, playLogFile = null, optimizeFile = null, lineupSpec = null;
+	int minPAs = 3000, topPairs = 1;
+	double minOps = .850;
+	boolean bySeason = false, topGiven = false;
+	Long seedArg = null;
+	int threads = Runtime.getRuntime().availableProcessors();
+	OutcomeSampler.Kind sampler = OutcomeSampler.Kind.TABLE;
+	RandomSource.Kind rng = RandomSource.Kind.XOSHIRO;
+	boolean summary = false, batchEngine = false, jmx = false;
+	MatchedStreams.Mode pairing = null;
+	int progressSeconds = 0, playLogSample = 10000;
+	int firstSeason = 1, workers = 0, shardSize = 1000, servePort = -1;
+	long cacheSeasons = 2000000;
+	String workDir = null, storeDir = null;
+	boolean storeGames = false;
+	List<String> queries = new ArrayList<String>();
+	double precision = 0;
+	try {
+	    for(int i = 0; i < args.length; i++) {
+		if(args[i].equals("--format") || args[i].equals("-f")) {
+		    format = ResultWriter.Format.valueOf(args[++i].toUpperCase());
+		}
+		else if(args[i].equals("--output") || args[i].equals("-o")) {
+		    outputFile = args[++i];
+		}
+		else if(args[i].equals("--from-binary")) {
+		    binaryInput = args[++i];
+		}
+		else if(args[i].equals("--league")) {
+		    leagueFile = args[++i];
+		}
+		else if(args[i].equals("--sweep")) {
+		    sweepSpec = args[++i];
+		}
+		else if(args[i].equals("--against")) {
+		    against = args[++i];
+		}
+		else if(args[i].equals("--cache")) {
+		    cacheFile = args[++i];
+		}
+		else if(args[i].equals("--batting")) {
+		    battingFile = args[++i];
+		}
+		else if(args[i].equals("--pairs")) {
+		    pairsFile = args[++i];
+		}
+		else if(args[i].equals("--min-ops")) {
+		    minOps = Double.parseDouble(args[++i]);
+		}
+		else if(args[i].equals("--top")) {
+		    topPairs = Integer.parseInt(args[++i]);
+		    topGiven = true;
+		}
+		else if(args[i].equals("--min-pa")) {
+		    minPAs = Integer.parseInt(args[++i]);
+		}
+		else if(args[i].equals("--by-season")) {
+		    bySeason = true;
+		}
+		else if(args[i].equals("--optimize")) {
+		    optimizeFile = args[++i];
+		}
+		else if(args[i].equals("--lineup")) {
+		    lineupSpec = args[++i];
+		}
+		else if(args[i].equals("--markov")) {
+		    printMarkovReport();
+		    return;
+		}
+		else if(args[i].equals("--seed") || args[i].equals("-s")) {
+		    seedArg = Long.parseLong(args[++i]);
+		}
+		else if(args[i].equals("--threads") || args[i].equals("-t")) {
+		    threads = Integer.parseInt(args[++i]);
+		}
+		else if(args[i].equals("--sampler")) {
+		    sampler = OutcomeSampler.Kind.valueOf(args[++i].toUpperCase());
+		}
+		else if(args[i].equals("--rng")) {
+		    rng = RandomSource.Kind.valueOf(args[++i].toUpperCase());
+		}
+		else if(args[i].equals("--engine")) {
+		    String engine = args[++i];
+		    if(!engine.equals("batch") && !engine.equals("scalar")) {
+			usage();
+		    }
+		    batchEngine = engine.equals("batch");
+		}
+		else if(args[i].equals("--variance-reduction")) {
+		    pairing = MatchedStreams.Mode.valueOf(args[++i].toUpperCase());
+		}
+		else if(args[i].equals("--first-season")) {
+		    firstSeason = Integer.parseInt(args[++i]);
+		}
+		else if(args[i].equals("--workers")) {
+		    workers = Integer.parseInt(args[++i]);
+		}
+		else if(args[i].equals("--shard-size")) {
+		    shardSize = Integer.parseInt(args[++i]);
+		}
+		else if(args[i].equals("--work-dir")) {
+		    workDir = args[++i];
+		}
+		else if(args[i].equals("--serve")) {
+		    servePort = Integer.parseInt(args[++i]);
+		}
+		else if(args[i].equals("--cache-seasons")) {
+		    cacheSeasons = Long.parseLong(args[++i]);
+		}
+		else if(args[i].equals("--store")) {
+		    storeDir = args[++i];
+		}
+		else if(args[i].equals("--store-games")) {
+		    storeGames = true;
+		}
+		else if(args[i].equals("--query")) {
+		    queries.add(args[++i]);
+		}
+		else if(args[i].equals("--summary")) {
+		    summary = true;
+		}
+		else if(args[i].equals("--precision")) {
+		    precision = Double.parseDouble(args[++i]);
+		}
+		else if(args[i].equals("--checkpoint")) {
+		    checkpointFile = args[++i];
+		}
+		else if(args[i].equals("--progress")) {
+		    progressSeconds = Integer.parseInt(args[++i]);
+		}
+		else if(args[i].equals("--jmx")) {
+		    jmx = true;
+		}
+		else if(args[i].equals("--play-log")) {
+		    playLogFile = args[++i];
+		}
+		else if(args[i].equals("--play-log-sample")) {
+		    playLogSample = Integer.parseInt(args[++i]);
+		}
+		else {
+		    numSeasons = Integer.parseInt(args[i]);
+		    seasonHeaders = true;
+		}
+	    }
+	}
+	catch(IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+	    usage();
+	}
+	if(threads < 1 || precision < 0 || topPairs < 1 || progressSeconds < 0 || playLogSample < 1
+	   || firstSeason < 1 || (firstSeason > 1 && checkpointFile != null) || workers < 0 || shardSize < 1) {
+	    usage();
+	}
+	if(pairing != null && (batchEngine || (seasonHeaders && numSeasons % pairing.groupSize != 0)
+			       || (firstSeason - 1) % pairing.groupSize != 0 || (workers > 0 && shardSize % pairing.groupSize != 0))) {
+	    //the groups have to be whole for their seasons to cancel each other's luck out
+	    System.err.println("--variance-reduction needs the scalar engine, and whole groups of " + pairing.groupSize + " seasons in the run and in each shard");
+	    usage();
+	}
+	if(progressSeconds > 0) {
+	    Metrics.printProgress(progressSeconds, System.err);
+	}
+	if(jmx) {
+	    try {
+		Metrics.registerMBean();
+	    }
+	    catch(JMException e) {
+		System.err.println("Couldn't register the JMX bean: " + e);
+	    }
+	}
+	if(storeGames && (batchEngine || workers > 0 || checkpointFile != null)) {
+	    //the games' scores only exist in the process that played them
+	    System.err.println("--store-games needs the scalar engine in one process, without --checkpoint");
+	    usage();
+	}
+	if(!queries.isEmpty()) {
+	    if(storeDir == null) {
+		usage();
+	    }
+	    try(ColumnStore store = new ColumnStore(new File(storeDir), false, false)) {
+		//a histogram can be millions of lines
+		PrintStream printer = new PrintStream(new BufferedOutputStream(System.out, 1 << 16), false);
+		for(String query : queries) {
+		    long start = System.nanoTime();
+		    store.query(query, printer);
+		    printer.flush();
+		    System.err.println(query + ": " + (System.nanoTime() - start) / 1000000 + " ms over " + store.getSeasons() + " seasons");
+		}
+	    }
+	    catch(IllegalArgumentException e) {
+		System.err.println(e.getMessage());
+		System.exit(1);
+	    }
+	    return;
+	}
+	if(servePort >= 0) {
+	    new MatchupService(threads, cacheSeasons).start(servePort);
+	    System.err.println("Answering matchups at http://localhost:" + servePort + "/matchup");
+	    return;
+	}
+	if(precision > 0 && !seasonHeaders) {
+	    //no season count given, so there is no limit but the precision
+	    numSeasons = Integer.MAX_VALUE;
+	    seasonHeaders = true;
+	}
+	OutputStream out = (outputFile == null) ? System.out : new FileOutputStream(outputFile);
+	if(binaryInput != null) {
+	    boolean playLogInput;
+	    try(InputStream in = new FileInputStream(binaryInput)) {
+		playLogInput = PlayLog.isBinaryLog(in);
+	    }
+	    if(playLogInput) {
+		//a play log rather than season results, which only has one other format
+		try(InputStream in = new FileInputStream(binaryInput);
+		    OutputStream json = out) {
+		    PlayLog.binaryToJson(in, json);
+		}
+		return;
+	    }
+	    try(InputStream in = new FileInputStream(binaryInput);
+		ResultWriter.BinaryReader reader = new ResultWriter.BinaryReader(in);
+		ResultWriter writer = format.open(out, true)) {
+		ObpSlgSim.SeasonResult result;
+		while((result = reader.read()) != null) {
+		    writer.write(result);
+		}
+	    }
+	    return;
+	}
+	if(battingFile != null) {
+	    long start = System.nanoTime();
+	    BattingTable table = new BattingTable(bySeason).load(battingFile);
+	    Map<String, Player> players = table.players(minPAs);
+	    long millis = (System.nanoTime() - start) / 1000000;
+	    PrintStream printer = new PrintStream(new BufferedOutputStream(out, 1 << 16), false);
+	    BattingTable.printProfiles(players, printer);
+	    printer.flush();
+	    System.err.println("Read " + table.getRows() + " rows and made " + players.size() + " players in " + millis + " ms");
+	    return;
+	}
+	if(seedArg == null && checkpointFile != null) {
+	    //resuming, so keep the seed the run started with
+	    seedArg = Checkpoint.savedSeed(new File(checkpointFile));
+	}
+	long masterSeed;
+	if(seedArg != null) {
+	    masterSeed = seedArg;
+	}
+	else {
+	    //no seed given, so pick one and report it so the run can be reproduced
+	    masterSeed = new Random().nextLong();
+	    System.err.println("Master seed: " + masterSeed);
+	}
+	if(optimizeFile != null) {
+	    Map<String, Player> profiles = readProfiles(optimizeFile);
+	    List<String> lineup = new ArrayList<String>();
+	    LineupOptimizer optimizer;
+	    try {
+		if(lineupSpec == null) {
+		    lineup.addAll(profiles.keySet());
+		}
+		else {
+		    for(String entry : lineupSpec.split(",")) {
+			//Name*N stands for N of the same hitter
+			int star = entry.lastIndexOf('*');
+			if(star >= 0 && !entry.substring(star + 1).trim().matches("[0-9]+")) {
+			    throw new IllegalArgumentException(entry + " isn't Name*N with a whole number N");
+			}
+			int count = (star < 0) ? 1 : Integer.parseInt(entry.substring(star + 1).trim());
+			for(int i = 0; i < count; i++) {
+			    lineup.add(((star < 0) ? entry : entry.substring(0, star)).trim());
+			}
+		    }
+		}
+		optimizer = new LineupOptimizer(lineup, profiles);
+	    }
+	    catch(IllegalArgumentException e) {
+		//a lineup that isn't nine hitters or a name that isn't in the file
+		System.err.println(e.getMessage());
+		System.exit(1);
+		return;
+	    }
+	    ForkJoinPool pool = new ForkJoinPool(threads);
+	    long start = System.nanoTime();
+	    List<LineupOptimizer.Order> best = optimizer.search(pool, topGiven ? topPairs : 10);
+	    long searchMillis = (System.nanoTime() - start) / 1000000;
+	    //with no season count, 100 seasons' worth of games is enough to tell most of the best orders apart
+	    int games = 162 * (seasonHeaders ? numSeasons : 100);
+	    int[] given = new int[LineupOptimizer.LINEUP];
+	    for(int spot = 0; spot < given.length; spot++) {
+		given[spot] = optimizer.getKind(lineup.get(spot));
+	    }
+	    start = System.nanoTime();
+	    optimizer.confirm(best, given, games, masterSeed, sampler, rng, pool);
+	    long confirmMillis = (System.nanoTime() - start) / 1000000;
+	    pool.shutdown();
+	    PrintStream printer = new PrintStream(new BufferedOutputStream(out, 1 << 16), false);
+	    optimizer.print(best, printer);
+	    printer.flush();
+	    System.err.println("Scored " + optimizer.getOrderCount() + " different orders in " + searchMillis + " ms and played " + games
+			       + " games with each of the best " + best.size() + " in " + confirmMillis + " ms");
+	    return;
+	}
+	if(pairsFile != null) {
+	    long start = System.nanoTime();
+	    List<PairFinder.Hitter> hitters = new BattingTable(bySeason).load(pairsFile).hitters(minPAs);
+	    long loaded = System.nanoTime();
+	    List<PairFinder.Pair> pairs = new PairFinder(hitters).find(minOps, 1, topPairs);
+	    long found = System.nanoTime();
+	    System.err.println("Loaded " + hitters.size() + " hitters in " + (loaded - start) / 1000000 + " ms and found " + pairs.size() + " pairs in " + (found - loaded) / 1000000 + " ms");
+	    PrintStream printer = new PrintStream(new BufferedOutputStream(out, 1 << 16), false);
+	    for(PairFinder.Pair pair : pairs) {
+		printer.println(pair);
+		if(seasonHeaders) {
+		    //a season count was given, so play every pair's matchup that many seasons
+		    StreamingStats pairStats = new StreamingStats();
+		    SeasonRunner pairRunner = new SeasonRunner(masterSeed, threads, sampler, rng, pair.highObp.player, pair.highObp.name, pair.highSlg.player, pair.highSlg.name);
+		    pairRunner.run(1, numSeasons, result -> {
+			    pairStats.add(result);
+			    return true;
+			});
+		    printer.println("  In " + numSeasons + " seasons " + pair.highObp.name + "'s team won " + round(pairStats.highObp.wins.getMean()) + " games a season and "
+				    + pair.highSlg.name + "'s won " + round(pairStats.highSlg.wins.getMean()) + ", a winning percentage gap of "
+				    + round(pairStats.getWpctGap()) + " +/- " + round(pairStats.getWpctGapHalfWidth()));
+		}
+	    }
+	    printer.flush();
+	    return;
+	}
+	if(sweepSpec != null) {
+	    double[] reference = (against == null) ? Sweep.LEAGUE_AVERAGE : Sweep.grid(against, Sweep.LEAGUE_AVERAGE).get(0);
+	    Sweep sweep = new Sweep(reference, numSeasons, masterSeed, sampler, rng);
+	    Sweep.Cache cache = new Sweep.Cache(cacheFile.isEmpty() ? null : new File(cacheFile));
+	    PrintStream printer = new PrintStream(new BufferedOutputStream(out, 1 << 16), false);
+	    List<double[]> points = Sweep.grid(sweepSpec, Sweep.LEAGUE_AVERAGE);
+	    int simulated = sweep.run(points, cache, threads, printer);
+	    printer.flush();
+	    System.err.println("Simulated " + simulated + " of " + points.size() + " points, the others were cached or impossible");
+	    return;
+	}
+	if(leagueFile != null) {
+	    Map<String, Player> profiles = readProfiles(leagueFile);
+	    PrintStream printer = new PrintStream(new BufferedOutputStream(out, 1 << 16), false);
+	    for(int season = 1; season <= numSeasons; season++) {
+		League league = new League(profiles, sampler);
+		league.play(seasonSeed(masterSeed, season), rng, threads);
+		if(seasonHeaders) {
+		    printer.println("Season " + season + ":");
+		}
+		league.printStandings(printer);
+		printer.println();
+	    }
+	    printer.flush();
+	    return;
+	}
+	final StreamingStats stats = (summary || precision > 0) ? new StreamingStats() : null;
+	final double targetPrecision = precision;
+	SeasonRunner runner = new SeasonRunner(masterSeed, threads, sampler, rng);
+	if(batchEngine) {
+	    runner.useBatchEngine(BatchSimulator.DEFAULT_LANES);
+	}
+	if(pairing != null) {
+	    runner.usePairing(pairing);
+	    if(stats != null) {
+		stats.setGroupSize(pairing.groupSize);
+	    }
+	}
+	ShardRunner sharded = null;
+	File shardDir = null;
+	if(workers > 0) {
+	    //the workers get everything that decides the seasons' results, and share the threads
+	    List<String> workerSettings = new ArrayList<String>(Arrays.asList("--seed", Long.toString(masterSeed), "--sampler", sampler.toString(), "--rng", rng.toString(),
+									      "--engine", batchEngine ? "batch" : "scalar", "--threads", Integer.toString(Math.max(1, threads / workers))));
+	    if(pairing != null) {
+		workerSettings.add("--variance-reduction");
+		workerSettings.add(pairing.toString());
+	    }
+	    shardDir = (workDir == null) ? Files.createTempDirectory("obpslg-shards").toFile() : new File(workDir);
+	    shardDir.mkdirs();
+	    sharded = new ShardRunner(shardDir, workers, shardSize, workerSettings);
+	}
+	PlayLog playLog = null;
+	if(playLogFile != null) {
+	    if(batchEngine || sharded != null) {
+		System.err.println("The batch engine and worker processes don't log plays, so " + playLogFile + " will be empty");
+	    }
+	    PlayLog.Format playLogFormat = playLogFile.endsWith(".jsonl") ? PlayLog.Format.JSONL : PlayLog.Format.BINARY;
+	    playLog = new PlayLog(new FileOutputStream(playLogFile), playLogFormat, masterSeed, playLogSample, PlayLog.DEFAULT_CAPACITY);
+	    runner.logPlays(playLog);
+	}
+	String settings = "engine=" + (batchEngine ? "batch" : "scalar") + " sampler=" + sampler + " rng=" + rng + ((pairing == null) ? "" : " pairing=" + pairing);
+	try(final ResultWriter writer = format.open(out, seasonHeaders);
+	    final Checkpoint checkpoint = (checkpointFile == null) ? null : new Checkpoint(new File(checkpointFile), masterSeed, settings);
+	    final ColumnStore store = (storeDir == null) ? null : new ColumnStore(new File(storeDir), true, storeGames)) {
+	    SeasonRunner.Sink sink = result -> {
+		writer.write(result);
+		if(store != null) {
+		    store.write(result);
+		}
+		if(stats == null) {
+		    return true;
+		}
+		stats.add(result);
+		//stop once the gap between the teams is known as precisely as asked for
+		return !(targetPrecision > 0 && stats.isPreciseEnough(targetPrecision));
+	    };
+	    if(checkpoint != null) {
+		//the saved seasons go through the sink again, so the output is the same as if the run had never stopped
+		int first = checkpoint.resume(numSeasons, sink);
+		if(first != 1) {
+		    System.err.println("Resumed from " + checkpointFile + ((first == 0) ? ", which had every season" : " at season " + first));
+		}
+		if(first > 0) {
+		    SeasonRunner.Sink saving = result -> {
+			checkpoint.save(result);
+			return sink.accept(result);
+		    };
+		    if(sharded == null) {
+			runner.run(first, numSeasons, saving);
+		    }
+		    else {
+			sharded.run(first, numSeasons, saving);
+		    }
+		}
+	    }
+	    else if(sharded == null) {
+		runner.run(firstSeason, numSeasons, sink);
+	    }
+	    else {
+		sharded.run(firstSeason, numSeasons, sink);
+	    }
+	}
+	finally {
+	    if(playLog != null) {
+		playLog.close();
+	    }
+	    if(workDir == null && shardDir != null) {
+		//a temporary directory, and the shards in it are gone once they're merged or the run stops (except a failed shard's log)
+		shardDir.delete();
+	    }
+	}
+	if(playLog != null && playLog.getDropped() > 0) {
+	    System.err.println("The play log fell behind and left out " + playLog.getDropped() + " plate appearances");
+	}
+	if(stats != null) {
+	    stats.print(System.err);
+	}
+    }
+    
+}
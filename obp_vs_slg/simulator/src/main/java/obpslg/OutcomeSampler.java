@@ -0,0 +1,148 @@
+package obpslg;
+
+/**
+ * Turns a random number into the outcome of a plate appearance.<br>
+ * Every implementation is built from a player's cumulative outcome thresholds (see ObpSlgSim.Player) and gives exactly the same distribution of outcomes:
+ * outcome i happens with probability (thresholds[i] - thresholds[i-1]) / thresholds[6].<br>
+ * Samplers hold no mutable state, so one sampler can be shared by every copy of a player and by every thread.
+ */
+interface OutcomeSampler {
+
+    /**
+     * Draws the outcome of a plate appearance.
+     * @param r The random number generator to draw from.
+     * @return The outcome code: 0 strikeout, 1 out in play, 2 walk or hit-by-pitch, 3 single, 4 double, 5 triple, 6 home run.
+     */
+    int sample(RandomSource r);
+
+    //The ways a sampler can be built, selected on the command line with --sampler
+    enum Kind {
+	CUMULATIVE, ALIAS, TABLE;
+
+	/**
+	 * @param thresholds The cumulative outcome thresholds of a player.
+	 * @return A new sampler of this kind for those thresholds.
+	 */
+	public OutcomeSampler build(int[] thresholds) {
+	    switch(this) {
+	    case ALIAS:
+		return new Alias(thresholds);
+	    case TABLE:
+		return new LookupTable(thresholds);
+	    default:
+		return new Cumulative(thresholds);
+	    }
+	}
+    }
+
+    /**
+     * The original sampler: draws a number below the number of plate appearances and scans the thresholds for the first one it falls under.
+     */
+    final class Cumulative implements OutcomeSampler {
+	private final int[] thresholds;
+	private final int pa;
+
+	public Cumulative(int[] thresholdsIn) {
+	    thresholds = thresholdsIn.clone();
+	    pa = thresholds[thresholds.length - 1];
+	}
+
+	@Override
+	public int sample(RandomSource r) {
+	    int outcome = r.nextInt(pa);
+	    for(int i = 0; i < thresholds.length; i++) {
+		if(outcome < thresholds[i]) {
+		    return i;
+		}
+	    }
+	    //this should never happen - if it does, ERROR!
+	    return -1;
+	}
+    }
+
+    /**
+     * Walker's alias method, done in integer arithmetic so the distribution is exact.<br>
+     * There is one column per outcome, each pa units tall. Column i keeps the first cut[i] units for outcome i and gives the rest to outcome alias[i].
+     * A single draw below 7 * pa picks both the column and the spot within it, so a sample is one draw and one compare.
+     */
+    final class Alias implements OutcomeSampler {
+	private final int[] cut, alias;
+	private final int pa, bound;
+
+	public Alias(int[] thresholds) {
+	    int n = thresholds.length;
+	    pa = thresholds[n - 1];
+	    bound = n * pa;
+	    cut = new int[n];
+	    alias = new int[n];
+	    //each outcome's weight, scaled so the average weight is exactly one column (pa)
+	    long[] scaled = new long[n];
+	    int[] small = new int[n], large = new int[n];
+	    int numSmall = 0, numLarge = 0;
+	    for(int i = 0; i < n; i++) {
+		scaled[i] = (long)n * (thresholds[i] - (i == 0 ? 0 : thresholds[i-1]));
+		if(scaled[i] < pa) {
+		    small[numSmall++] = i;
+		}
+		else {
+		    large[numLarge++] = i;
+		}
+	    }
+	    while(numSmall > 0 && numLarge > 0) {
+		int s = small[--numSmall], l = large[--numLarge];
+		cut[s] = (int)scaled[s];
+		alias[s] = l;
+		//the large outcome fills the rest of the small outcome's column
+		scaled[l] -= pa - scaled[s];
+		if(scaled[l] < pa) {
+		    small[numSmall++] = l;
+		}
+		else {
+		    large[numLarge++] = l;
+		}
+	    }
+	    //whatever is left fills its own column exactly
+	    while(numLarge > 0) {
+		int l = large[--numLarge];
+		cut[l] = pa;
+		alias[l] = l;
+	    }
+	    while(numSmall > 0) {
+		int s = small[--numSmall];
+		cut[s] = pa;
+		alias[s] = s;
+	    }
+	}
+
+	@Override
+	public int sample(RandomSource r) {
+	    int u = r.nextInt(bound);
+	    int column = u / pa;
+	    return (u - column * pa < cut[column]) ? column : alias[column];
+	}
+    }
+
+    /**
+     * A dense table with one entry per plate appearance of the player, holding the outcome of that plate appearance.<br>
+     * It maps each draw to the same outcome the cumulative sampler would, so with the same random numbers the two give identical results.
+     */
+    final class LookupTable implements OutcomeSampler {
+	private final byte[] table;
+
+	public LookupTable(int[] thresholds) {
+	    table = new byte[thresholds[thresholds.length - 1]];
+	    int from = 0;
+	    for(int i = 0; i < thresholds.length; i++) {
+		for(int j = from; j < thresholds[i]; j++) {
+		    table[j] = (byte)i;
+		}
+		from = thresholds[i];
+	    }
+	}
+
+	@Override
+	public int sample(RandomSource r) {
+	    return table[r.nextInt(table.length)];
+	}
+    }
+}
@@ -0,0 +1,146 @@
+package obpslg;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Finds pairs of hitters with the same OPS, to the thousandth, and OBPs (and so SLGs) as far apart as possible, like Eddie Collins and Rafael Devers.<br>
+ * The index is one sorted array of longs packing each hitter's OPS, OBP and position, so building it is a single primitive sort
+ * and every OPS is a run of the array with its hitters in OBP order. One pass over the runs then finds the most divergent pairs of every OPS.
+ */
+class PairFinder {
+
+    //A real hitter's career (or season), with the traditional rate stats that the matching is done on
+    static class Hitter {
+	final String name;
+	final ObpSlgSim.Player player;
+	final double ba, obp, slg;
+	//the OPS and OBP rounded to the nearest thousandth, as they're listed
+	final int opsThousandths, obpThousandths;
+	public Hitter(String nameIn, ObpSlgSim.Player playerIn, double baIn, double obpIn, double slgIn) {
+	    name = nameIn;
+	    player = playerIn;
+	    ba = baIn;
+	    obp = obpIn;
+	    slg = slgIn;
+	    opsThousandths = (int)Math.round(1000 * (obp + slg));
+	    obpThousandths = (int)Math.round(1000 * obp);
+	}
+
+	/**
+	 * @return The slash line, e.g. .333/.424/.429
+	 */
+	public String slashLine() {
+	    return ResultWriter.rate(ba) + "/" + ResultWriter.rate(obp) + "/" + ResultWriter.rate(slg);
+	}
+    }
+
+    //Two hitters with the same OPS
+    static class Pair {
+	final Hitter highObp, highSlg;
+	public Pair(Hitter highObpIn, Hitter highSlgIn) {
+	    highObp = highObpIn;
+	    highSlg = highSlgIn;
+	}
+
+	/**
+	 * @return How much higher the high OBP hitter's OBP is, in thousandths
+	 */
+	public int getObpGap() {
+	    return highObp.obpThousandths - highSlg.obpThousandths;
+	}
+
+	@Override
+	public String toString() {
+	    return ResultWriter.rate(highObp.opsThousandths / 1000.0) + " OPS: " + highObp.name + " " + highObp.slashLine() + " (" + highObp.player.getStatLine()[0] + " PA) and "
+		+ highSlg.name + " " + highSlg.slashLine() + " (" + highSlg.player.getStatLine()[0] + " PA), OBP gap " + ResultWriter.rate(getObpGap() / 1000.0);
+	}
+    }
+
+    //OPS and OBP are at most a few thousand thousandths, so 20 bits each leaves 24 bits for the hitter's position
+    private static final int INDEX_BITS = 24, OBP_BITS = 20;
+    private final Hitter[] hitters;
+    private final long[] index;
+
+    /**
+     * Builds the index.
+     * @param hittersIn The hitters to match up. There can be at most 16 million.
+     */
+    public PairFinder(List<Hitter> hittersIn) {
+	if(hittersIn.size() >= 1 << INDEX_BITS) {
+	    throw new IllegalArgumentException("Too many hitters: " + hittersIn.size());
+	}
+	hitters = hittersIn.toArray(new Hitter[0]);
+	index = new long[hitters.length];
+	for(int i = 0; i < hitters.length; i++) {
+	    long ops = Math.max(0, Math.min(hitters[i].opsThousandths, (1 << OBP_BITS) - 1));
+	    long obp = Math.max(0, Math.min(hitters[i].obpThousandths, (1 << OBP_BITS) - 1));
+	    index[i] = (ops << (OBP_BITS + INDEX_BITS)) | (obp << INDEX_BITS) | i;
+	}
+	Arrays.sort(index);
+    }
+
+    private Hitter hitter(long entry) {
+	return hitters[(int)(entry & ((1 << INDEX_BITS) - 1))];
+    }
+
+    private static int ops(long entry) {
+	return (int)(entry >>> (OBP_BITS + INDEX_BITS));
+    }
+
+    /**
+     * Finds the most divergent pairs of every OPS at least the minimum, best OPS first.
+     * @param minOps The lowest OPS to look at, e.g. .850.
+     * @param minObpGap The smallest OBP gap a pair can have, in thousandths.
+     * @param perOps The most pairs to return for each OPS.
+     * @return The pairs, grouped by OPS from highest to lowest, each group from the biggest OBP gap to the smallest.
+     */
+    public List<Pair> find(double minOps, int minObpGap, int perOps) {
+	List<Pair> pairs = new ArrayList<Pair>();
+	int minOpsThousandths = (int)Math.round(1000 * minOps);
+	int end = index.length;
+	while(end > 0 && ops(index[end - 1]) >= minOpsThousandths) {
+	    int start = end - 1;
+	    while(start > 0 && ops(index[start - 1]) == ops(index[end - 1])) {
+		start--;
+	    }
+	    topPairs(start, end, minObpGap, perOps, pairs);
+	    end = start;
+	}
+	return pairs;
+    }
+
+    /**
+     * Adds the k pairs with the biggest OBP gaps from one OPS's run of the index, which is sorted by OBP.
+     * The biggest gap is always from the first hitter to the last; after a pair (i, j), the next candidates are (i+1, j) and (i, j-1).
+     */
+    private void topPairs(int start, int end, int minObpGap, int k, List<Pair> pairs) {
+	//each candidate is its gap and the positions of its two hitters in the index, biggest gap first
+	PriorityQueue<long[]> candidates = new PriorityQueue<long[]>(16, (a, b) -> Long.compare(b[0], a[0]));
+	Set<Long> seen = new HashSet<Long>();
+	offer(candidates, seen, start, end - 1);
+	int found = 0;
+	while(found < k && !candidates.isEmpty()) {
+	    long[] best = candidates.poll();
+	    int i = (int)best[1], j = (int)best[2];
+	    Hitter low = hitter(index[i]), high = hitter(index[j]);
+	    if(high.obpThousandths - low.obpThousandths < Math.max(1, minObpGap)) {
+		break;
+	    }
+	    pairs.add(new Pair(high, low));
+	    found++;
+	    offer(candidates, seen, i + 1, j);
+	    offer(candidates, seen, i, j - 1);
+	}
+    }
+
+    private void offer(PriorityQueue<long[]> candidates, Set<Long> seen, int i, int j) {
+	if(i < j && seen.add(((long)i << 32) | j)) {
+	    candidates.add(new long[]{hitter(index[j]).obpThousandths - hitter(index[i]).obpThousandths, i, j});
+	}
+    }
+}
@@ -0,0 +1,270 @@
+package obpslg;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A play-by-play log of a sample of the simulated games, written to a file in the background.<br>
+ * The simulating threads only pack each plate appearance into two longs and put them in a bounded ring buffer, without locking;
+ * a writer thread takes them out and writes them as JSON lines or compact binary records. If the writer falls so far behind that the buffer is full,
+ * plate appearances are dropped (and counted) rather than slowing the simulation down.
+ * Which games are logged only depends on the seed and the season and game numbers, so the same run logs the same games with any number of threads.
+ */
+class PlayLog implements Closeable {
+
+    //The file formats: one JSON object per plate appearance, or fixed-width binary records
+    enum Format {
+	JSONL, BINARY
+    }
+
+    static final int MAGIC = 0x4F42504C; //"OBPL"
+    static final int VERSION = 1;
+    static final int RECORD_SIZE = 12;
+    //must be a power of 2
+    static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final String[] EVENT_NAMES = {"strikeout", "out_in_play", "productive_out", "double_play", "walk",
+						 "infield_single", "single", "double", "triple", "home_run"};
+
+    private final long masterSeed;
+    private final int sampleEvery;
+    private final Format format;
+    //the ring buffer: two longs per plate appearance, and the sequence number each slot was last published with plus 1
+    private final long[] slots;
+    private final AtomicLongArray published;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong(), consumed = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writer;
+    private volatile boolean closing;
+    private volatile IOException failure;
+
+    /**
+     * Starts the writer thread.
+     * @param out Where to write the log. It is closed along with the log.
+     * @param formatIn The format of the log.
+     * @param masterSeedIn The seed of the run, which decides which games are logged along with sampleEveryIn.
+     * @param sampleEveryIn Log 1 game in this many, at random.
+     * @param capacity How many plate appearances the buffer holds. Must be a power of 2.
+     */
+    public PlayLog(final OutputStream out, Format formatIn, long masterSeedIn, int sampleEveryIn, int capacity) throws IOException {
+	if(Integer.bitCount(capacity) != 1 || sampleEveryIn < 1) {
+	    throw new IllegalArgumentException("The capacity must be a power of 2 and the sampling rate at least 1");
+	}
+	masterSeed = masterSeedIn;
+	sampleEvery = sampleEveryIn;
+	format = formatIn;
+	slots = new long[2 * capacity];
+	published = new AtomicLongArray(capacity);
+	mask = capacity - 1;
+	writer = new Thread(() -> drain(out), "play-log");
+	//a run that dies without closing the log shouldn't be kept alive by it
+	writer.setDaemon(true);
+	writer.start();
+    }
+
+    /**
+     * @param season The season.
+     * @param game The game of the season, from 1.
+     * @return Whether the game should be logged.
+     */
+    public boolean isSampled(int season, int game) {
+	return Long.remainderUnsigned(RandomSource.mix64(ObpSlgSim.seasonSeed(masterSeed, season) ^ game), sampleEvery) == 0;
+    }
+
+    /**
+     * @param season The season.
+     * @param game The game of the season, from 1.
+     * @return An observer that logs every plate appearance of the game. Only one thread may use it.
+     */
+    public PlayObserver game(int season, int game) {
+	return new Game(season, game);
+    }
+
+    //Keeps track of the inning of one game and publishes its plate appearances
+    private class Game implements PlayObserver {
+	private final long gameBits;
+	private int inning = 1, half = 0;
+
+	Game(int season, int game) {
+	    gameBits = ((long)season << 32) | ((game & 0xFFFFL) << 16);
+	}
+
+	@Override
+	public void plateAppearance(int batter, int stateBefore, int event, int stateAfter, int runsScored, boolean walkOff) {
+	    publish(gameBits | (Math.min(inning, 255) << 8) | (batter << 4) | half,
+		    stateBefore | (stateAfter << 8) | (event << 16) | (runsScored << 24) | ((walkOff ? 1 : 0) << 28));
+	}
+
+	@Override
+	public void inningOver(int runs) {
+	    half ^= 1;
+	    if(half == 0) {
+		inning++;
+	    }
+	}
+    }
+
+    //claims the next slot, unless the buffer is full
+    private void publish(long first, long second) {
+	long sequence;
+	do {
+	    sequence = claimed.get();
+	    if(sequence - consumed.get() > mask) {
+		dropped.increment();
+		return;
+	    }
+	} while(!claimed.compareAndSet(sequence, sequence + 1));
+	int slot = (int)sequence & mask;
+	slots[2 * slot] = first;
+	slots[2 * slot + 1] = second;
+	//the slot's contents are visible to the writer once it sees this
+	published.lazySet(slot, sequence + 1);
+    }
+
+    private void drain(OutputStream stream) {
+	try(OutputStream out = stream) {
+	    DataOutputStream binary = null;
+	    Writer json = null;
+	    if(format == Format.BINARY) {
+		binary = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+		binary.writeInt(MAGIC);
+		binary.writeInt(VERSION);
+		binary.writeInt(RECORD_SIZE);
+	    }
+	    else {
+		json = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+	    }
+	    long next = consumed.get();
+	    while(true) {
+		int slot = (int)next & mask;
+		if(published.get(slot) != next + 1) {
+		    //nothing to write; everything published before closing has been written once closing is seen and the buffer is still empty
+		    if(closing && claimed.get() == next) {
+			break;
+		    }
+		    LockSupport.parkNanos(1000000);
+		    continue;
+		}
+		long first = slots[2 * slot], second = slots[2 * slot + 1];
+		consumed.lazySet(++next);
+		if(binary != null) {
+		    writeRecord(binary, first, second);
+		}
+		else {
+		    writeJson(json, first, second);
+		}
+	    }
+	    if(binary != null) {
+		binary.flush();
+	    }
+	    else {
+		json.flush();
+	    }
+	}
+	catch(IOException e) {
+	    failure = e;
+	}
+    }
+
+    private static void writeRecord(DataOutputStream out, long first, long second) throws IOException {
+	out.writeInt((int)(first >>> 32));
+	out.writeShort((int)(first >>> 16));
+	out.writeByte((int)(first >>> 8));
+	out.writeByte((int)first);
+	out.writeByte((int)second);
+	out.writeByte((int)(second >>> 8));
+	out.writeByte((int)(second >>> 16));
+	out.writeByte((int)(second >>> 24));
+    }
+
+    private static void writeJson(Writer out, long first, long second) throws IOException {
+	int before = (int)second & 0xFF, after = (int)(second >>> 8) & 0xFF;
+	out.write("{\"season\":" + (first >>> 32) + ",\"game\":" + ((first >>> 16) & 0xFFFF) + ",\"inning\":" + ((first >>> 8) & 0xFF)
+		  + ",\"half\":\"" + (((first & 1) == 0) ? "top" : "bottom") + "\",\"batter\":" + (((first >>> 4) & 0xF) + 1)
+		  + ",\"outs\":" + BaseOutStates.outs(before) + ",\"bases\":" + (before & 7)
+		  + ",\"event\":\"" + EVENT_NAMES[(int)(second >>> 16) & 0xFF] + "\",\"runs\":" + ((second >>> 24) & 0xF)
+		  + ",\"outsAfter\":" + BaseOutStates.outs(after) + ",\"basesAfter\":" + (after & 7)
+		  + ",\"walkOff\":" + (((second >>> 28) & 1) == 1) + "}\n");
+    }
+
+    /**
+     * @param in A stream that might be a binary play log.
+     * @return Whether it starts like one. Reads up to the first 4 bytes.
+     */
+    static boolean isBinaryLog(InputStream in) throws IOException {
+	DataInputStream data = new DataInputStream(in);
+	try {
+	    return data.readInt() == MAGIC;
+	}
+	catch(EOFException e) {
+	    return false;
+	}
+    }
+
+    /**
+     * Turns a binary play log into JSON lines.
+     * @param in The binary log.
+     * @param out Where to write the JSON lines.
+     */
+    static void binaryToJson(InputStream in, OutputStream out) throws IOException {
+	DataInputStream data = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+	if(data.readInt() != MAGIC || data.readInt() != VERSION || data.readInt() != RECORD_SIZE) {
+	    throw new IOException("Not a binary play log this version can read");
+	}
+	Writer json = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+	byte[] record = new byte[RECORD_SIZE];
+	while(true) {
+	    try {
+		data.readFully(record);
+	    }
+	    catch(EOFException e) {
+		break;
+	    }
+	    long first = ((long)(((record[0] & 0xFF) << 24) | ((record[1] & 0xFF) << 16) | ((record[2] & 0xFF) << 8) | (record[3] & 0xFF)) << 32)
+		| ((record[4] & 0xFFL) << 24) | ((record[5] & 0xFFL) << 16) | ((record[6] & 0xFFL) << 8) | (record[7] & 0xFFL);
+	    long second = (record[8] & 0xFFL) | ((record[9] & 0xFFL) << 8) | ((record[10] & 0xFFL) << 16) | ((record[11] & 0xFFL) << 24);
+	    writeJson(json, first, second);
+	}
+	json.flush();
+    }
+
+    /**
+     * @return How many plate appearances were left out of the log because the buffer was full
+     */
+    public long getDropped() {
+	return dropped.sum();
+    }
+
+    /**
+     * Waits for the writer to write everything published so far, and closes the file.
+     * Every simulating thread has to be done with the log first.
+     */
+    @Override
+    public void close() throws IOException {
+	closing = true;
+	try {
+	    writer.join();
+	}
+	catch(InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	}
+	if(failure != null) {
+	    throw failure;
+	}
+    }
+}
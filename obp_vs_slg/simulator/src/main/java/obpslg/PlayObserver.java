@@ -0,0 +1,65 @@
+package obpslg;
+
+import java.io.PrintStream;
+
+/**
+ * Watches the plate appearances of simulated innings, for logging and other bookkeeping that the simulation itself doesn't need.<br>
+ * simInning only calls an observer when one is given, so simulating without one costs nothing extra.
+ */
+interface PlayObserver {
+
+    /**
+     * Called after every plate appearance.
+     * @param batter The lineup index (from 0) of the batter.
+     * @param stateBefore The base-out state before the plate appearance (see BaseOutStates).
+     * @param event The event the plate appearance turned into (see BaseOutStates).
+     * @param stateAfter The base-out state after the plate appearance.
+     * @param runsScored The number of runs that scored on the play.
+     * @param walkOff True iff the play ended the game.
+     */
+    void plateAppearance(int batter, int stateBefore, int event, int stateAfter, int runsScored, boolean walkOff);
+
+    /**
+     * Called when an inning ends with three outs.
+     * @param runs The number of runs scored in the inning.
+     */
+    void inningOver(int runs);
+
+    /**
+     * Prints plays in English, like the simulator's LOG_PAS and LOG_INNINGS flags always have.
+     */
+    final class Text implements PlayObserver {
+	private final PrintStream out;
+	private final boolean logPAs;
+
+	/**
+	 * @param outIn Where to print.
+	 * @param logPAsIn Whether to print every plate appearance, or only the end of each inning.
+	 */
+	public Text(PrintStream outIn, boolean logPAsIn) {
+	    out = outIn;
+	    logPAs = logPAsIn;
+	}
+
+	@Override
+	public void plateAppearance(int batter, int stateBefore, int event, int stateAfter, int runsScored, boolean walkOff) {
+	    if(!logPAs) {
+		return;
+	    }
+	    out.println(BaseOutStates.describeBases(stateBefore) + ", " + BaseOutStates.outs(stateBefore) + " out");
+	    out.print("Batter #" + (batter+1) + ": " + BaseOutStates.describeEvent(event));
+	    if(runsScored > 0) {
+		out.print(" " + runsScored + " run(s) scored.");
+	    }
+	    if(walkOff) {
+		out.print(" Walk-off RBI!");
+	    }
+	    out.println();
+	}
+
+	@Override
+	public void inningOver(int runs) {
+	    out.println("End of the inning. " + runs + " run(s) scored.");
+	}
+    }
+}
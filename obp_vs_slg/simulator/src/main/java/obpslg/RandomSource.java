@@ -0,0 +1,221 @@
+package obpslg;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * A source of pseudorandom numbers for the simulation.<br>
+ * Implementations are not thread-safe: each season (or each thread) gets its own source and reuses it for every plate appearance and sub-roll,
+ * which avoids both allocating a generator per inning and the synchronization java.util.Random pays on every draw.
+ * split() hands out an independent source for a new stream of work, such as another season.
+ */
+interface RandomSource {
+
+    /**
+     * @return The next 64 pseudorandom bits.
+     */
+    long nextLong();
+
+    /**
+     * @return A new source whose numbers are independent of this one's. This source is advanced.
+     */
+    RandomSource split();
+
+    /**
+     * Draws a uniformly distributed int below the bound with Lemire's multiply-and-shift method, which almost never needs a second draw.
+     * @param bound The exclusive upper bound. Must be positive.
+     * @return A pseudorandom int from 0 (inclusive) to bound (exclusive).
+     */
+    default int nextInt(int bound) {
+	long m = (nextLong() >>> 32) * bound;
+	long low = m & 0xFFFFFFFFL;
+	if(low < bound) {
+	    //reject the few values that would make the result biased
+	    long threshold = (0x100000000L - bound) % bound;
+	    while(low < threshold) {
+		m = (nextLong() >>> 32) * bound;
+		low = m & 0xFFFFFFFFL;
+	    }
+	}
+	return (int)(m >>> 32);
+    }
+
+    /**
+     * @return A pseudorandom double from 0 (inclusive) to 1 (exclusive).
+     */
+    default double nextDouble() {
+	return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * The SplitMix64 finalizer, used to turn seeds and counters into well-mixed bits.
+     * @param z The value to mix.
+     * @return The mixed value.
+     */
+    static long mix64(long z) {
+	z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+	z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+	return z ^ (z >>> 31);
+    }
+
+    //The available generators, selected on the command line with --rng
+    enum Kind {
+	SPLITTABLE, XOSHIRO, COUNTER, JDK;
+
+	/**
+	 * @param seed The seed of the new source.
+	 * @return A new source of this kind.
+	 */
+	public RandomSource create(long seed) {
+	    switch(this) {
+	    case XOSHIRO:
+		return new Xoshiro256StarStar(seed);
+	    case COUNTER:
+		return new Counter(seed);
+	    case JDK:
+		return new Jdk(seed);
+	    default:
+		return new Splittable(seed);
+	    }
+	}
+    }
+
+    /**
+     * Wraps java.util.SplittableRandom, which is fast, unsynchronized and built to be split.
+     */
+    final class Splittable implements RandomSource {
+	private final SplittableRandom r;
+
+	public Splittable(long seed) {
+	    this(new SplittableRandom(seed));
+	}
+
+	private Splittable(SplittableRandom rIn) {
+	    r = rIn;
+	}
+
+	@Override
+	public long nextLong() {
+	    return r.nextLong();
+	}
+
+	@Override
+	public int nextInt(int bound) {
+	    return r.nextInt(bound);
+	}
+
+	@Override
+	public double nextDouble() {
+	    return r.nextDouble();
+	}
+
+	@Override
+	public RandomSource split() {
+	    return new Splittable(r.split());
+	}
+    }
+
+    /**
+     * Blackman and Vigna's xoshiro256** generator: 256 bits of state, a handful of shifts and xors per draw.
+     */
+    final class Xoshiro256StarStar implements RandomSource {
+	private long s0, s1, s2, s3;
+
+	public Xoshiro256StarStar(long seed) {
+	    //fill the state with SplitMix64 output, as the authors recommend, so it is never all zero
+	    s0 = mix64(seed += 0x9E3779B97F4A7C15L);
+	    s1 = mix64(seed += 0x9E3779B97F4A7C15L);
+	    s2 = mix64(seed += 0x9E3779B97F4A7C15L);
+	    s3 = mix64(seed + 0x9E3779B97F4A7C15L);
+	}
+
+	@Override
+	public long nextLong() {
+	    long result = Long.rotateLeft(s1 * 5, 7) * 9;
+	    long t = s1 << 17;
+	    s2 ^= s0;
+	    s3 ^= s1;
+	    s1 ^= s2;
+	    s0 ^= s3;
+	    s2 ^= t;
+	    s3 = Long.rotateLeft(s3, 45);
+	    return result;
+	}
+
+	@Override
+	public RandomSource split() {
+	    return new Xoshiro256StarStar(nextLong());
+	}
+    }
+
+    /**
+     * A counter-based generator: the n-th number of a stream is mix64 of its key and n, so any position in any stream can be reached directly.
+     * Splitting derives a new key instead of consuming numbers from a shared sequence.
+     */
+    final class Counter implements RandomSource {
+	private final long key;
+	private long counter;
+	private int splits;
+
+	public Counter(long seed) {
+	    this(mix64(seed), 0);
+	}
+
+	/**
+	 * @param keyIn The key of the stream.
+	 * @param position How many numbers of the stream have already been drawn.
+	 */
+	public Counter(long keyIn, long position) {
+	    key = keyIn;
+	    counter = position;
+	}
+
+	@Override
+	public long nextLong() {
+	    return mix64(key + 0x9E3779B97F4A7C15L * ++counter);
+	}
+
+	/**
+	 * @return How many numbers have been drawn from this stream so far.
+	 */
+	public long getPosition() {
+	    return counter;
+	}
+
+	@Override
+	public RandomSource split() {
+	    return new Counter(mix64(key ^ mix64(++splits)), 0);
+	}
+    }
+
+    /**
+     * Wraps java.util.Random, the generator the simulator originally used. Kept for comparison; it is the slowest of these.
+     */
+    final class Jdk implements RandomSource {
+	private final Random r;
+
+	public Jdk(long seed) {
+	    r = new Random(seed);
+	}
+
+	@Override
+	public long nextLong() {
+	    return r.nextLong();
+	}
+
+	@Override
+	public int nextInt(int bound) {
+	    return r.nextInt(bound);
+	}
+
+	@Override
+	public double nextDouble() {
+	    return r.nextDouble();
+	}
+
+	@Override
+	public RandomSource split() {
+	    return new Jdk(r.nextLong());
+	}
+    }
+}
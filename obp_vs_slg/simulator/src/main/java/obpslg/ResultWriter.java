@@ -0,0 +1,294 @@
+package obpslg;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Writes season results as they come in, in one of several formats, through a large buffer that is only flushed when it fills up or the writer is closed.<br>
+ * This replaces printing English and scraping it back out with make_csv.sh: the CSV format has exactly the columns of results.csv.
+ */
+abstract class ResultWriter implements Closeable, Flushable {
+
+    //the buffer size of every format, large enough that writes reach the OS in big batches
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    //The output formats, selected on the command line with --format
+    enum Format {
+	TEXT, CSV, JSONL, BINARY;
+
+	/**
+	 * @param out Where to write. It is closed along with the writer.
+	 * @param seasonHeaders Whether the text format should start each season with a "Season N:" line and end it with a blank line, like run_sim.sh used to.
+	 * @return A new writer in this format.
+	 */
+	public ResultWriter open(OutputStream out, boolean seasonHeaders) throws IOException {
+	    switch(this) {
+	    case CSV:
+		return new Csv(out);
+	    case JSONL:
+		return new JsonLines(out);
+	    case BINARY:
+		return new Binary(out);
+	    default:
+		return new Text(out, seasonHeaders);
+	    }
+	}
+    }
+
+    /**
+     * Writes one season.
+     * @param result The season to write.
+     */
+    public abstract void write(ObpSlgSim.SeasonResult result) throws IOException;
+
+    /**
+     * @param value A rounded stat, such as a batting average.
+     * @return The stat in thousandths.
+     */
+    static int thousandths(double value) {
+	return (int)Math.round(1000 * value);
+    }
+
+    /**
+     * @param value A rate stat.
+     * @return The stat the way baseball writes it, e.g. .345 or 1.012
+     */
+    static String rate(double value) {
+	//Locale.ROOT, since a comma for the decimal point would split a CSV column in two
+	String s = String.format(Locale.ROOT, "%.3f", value);
+	return s.startsWith("0") ? s.substring(1) : s;
+    }
+
+    /**
+     * @param s Any text, e.g. a team name from a profile file.
+     * @return The text as a JSON string, in quotes and with quotes, backslashes and control characters escaped
+     */
+    static String jsonString(String s) {
+	StringBuilder json = new StringBuilder(s.length() + 2).append('"');
+	for(int i = 0; i < s.length(); i++) {
+	    char c = s.charAt(i);
+	    if(c == '"' || c == '\\') {
+		json.append('\\').append(c);
+	    }
+	    else if(c < 0x20) {
+		json.append(String.format("\\u%04x", (int)c));
+	    }
+	    else {
+		json.append(c);
+	    }
+	}
+	return json.append('"').toString();
+    }
+
+    /**
+     * The base of the formats that are text, which all write through a buffered UTF-8 writer.
+     */
+    private abstract static class TextFormat extends ResultWriter {
+	protected final Writer out;
+
+	protected TextFormat(OutputStream outIn) {
+	    out = new BufferedWriter(new OutputStreamWriter(outIn, StandardCharsets.UTF_8), BUFFER_SIZE);
+	}
+
+	@Override
+	public void flush() throws IOException {
+	    out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+	    out.close();
+	}
+    }
+
+    /**
+     * The English report the simulator has always printed, which make_csv.sh can still read.
+     */
+    static class Text extends TextFormat {
+	private final boolean seasonHeaders;
+
+	public Text(OutputStream outIn, boolean seasonHeadersIn) {
+	    super(outIn);
+	    seasonHeaders = seasonHeadersIn;
+	}
+
+	@Override
+	public void write(ObpSlgSim.SeasonResult result) throws IOException {
+	    ObpSlgSim.TeamSeason highObp = result.highObp, highSlg = result.highSlg;
+	    if(seasonHeaders) {
+		out.write("Season " + result.season + ":\n");
+	    }
+	    out.write("Records:\n");
+	    out.write("Team High OBP: " + highObp.wins + "-" + highObp.losses + " (" + highObp.wpct + ")\n");
+	    out.write("Team High SLG: " + highSlg.wins + "-" + highSlg.losses + " (" + highSlg.wpct + ")\n");
+	    out.write("\n");
+	    out.write("Batting stats:\n");
+	    out.write("Team High OBP: " + highObp.ba + "/" + highObp.obp + "/" + highObp.slg + " (" + highObp.getOPS() + " OPS), " + highObp.runs + " runs scored\n");
+	    out.write("Team High SLG: " + highSlg.ba + "/" + highSlg.obp + "/" + highSlg.slg + " (" + highSlg.getOPS() + " OPS), " + highSlg.runs + " runs scored\n");
+	    if(seasonHeaders) {
+		out.write("\n");
+	    }
+	}
+    }
+
+    /**
+     * One row per season, with the same columns as results.csv.
+     */
+    static class Csv extends TextFormat {
+	//the header row, the same as the one make_csv.sh writes
+	static final String HEADER = "Season,High OBP Wins,High SLG Wins,High OBP BA,High OBP OBP,High OBP SLG,High OBP OPS,High OBP R,High SLG BA,High SLG OBP,High SLG SLG,High SLG OPS,High SLG R";
+
+	public Csv(OutputStream outIn) throws IOException {
+	    super(outIn);
+	    out.write(HEADER);
+	    out.write('\n');
+	}
+
+	@Override
+	public void write(ObpSlgSim.SeasonResult result) throws IOException {
+	    ObpSlgSim.TeamSeason highObp = result.highObp, highSlg = result.highSlg;
+	    out.write(result.season + "," + highObp.wins + "," + highSlg.wins + ",");
+	    writeBattingLine(highObp);
+	    out.write(',');
+	    writeBattingLine(highSlg);
+	    out.write('\n');
+	}
+
+	private void writeBattingLine(ObpSlgSim.TeamSeason team) throws IOException {
+	    out.write(team.ba + "," + team.obp + "," + team.slg + "," + (double)Math.round(1000 * team.getOPS())/1000 + "," + team.runs);
+	}
+    }
+
+    /**
+     * One JSON object per line per season, with a nested object for each team.
+     */
+    static class JsonLines extends TextFormat {
+
+	public JsonLines(OutputStream outIn) {
+	    super(outIn);
+	}
+
+	@Override
+	public void write(ObpSlgSim.SeasonResult result) throws IOException {
+	    out.write("{\"season\":" + result.season + ",\"highObp\":");
+	    writeTeam(result.highObp);
+	    out.write(",\"highSlg\":");
+	    writeTeam(result.highSlg);
+	    out.write("}\n");
+	}
+
+	private void writeTeam(ObpSlgSim.TeamSeason team) throws IOException {
+	    out.write("{\"name\":" + jsonString(team.name) + ",\"wins\":" + team.wins + ",\"losses\":" + team.losses + ",\"runs\":" + team.runs
+		      + ",\"ba\":" + team.ba + ",\"obp\":" + team.obp + ",\"slg\":" + team.slg + ",\"ops\":" + (double)Math.round(1000 * team.getOPS())/1000 + "}");
+	}
+    }
+
+    /**
+     * A compact fixed-width binary format for very large runs.<br>
+     * The file starts with the 4 bytes "OBPS", a format version (int) and the record size in bytes (int).
+     * Then every season is a RECORD_SIZE-byte record: the season number (int), followed by the high OBP team and then the high SLG team,
+     * each as wins, losses and runs (shorts) and BA, OBP and SLG in thousandths (shorts). Everything is big-endian.
+     */
+    static class Binary extends ResultWriter {
+	static final int MAGIC = 0x4F425053; //"OBPS"
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 12;
+	static final int RECORD_SIZE = 4 + 2 * 12;
+	private final DataOutputStream out;
+
+	public Binary(OutputStream outIn) throws IOException {
+	    this(outIn, true);
+	}
+
+	/**
+	 * @param header False to leave out the header, to add more seasons to the end of a file that already has one.
+	 */
+	public Binary(OutputStream outIn, boolean header) throws IOException {
+	    out = new DataOutputStream(new BufferedOutputStream(outIn, BUFFER_SIZE));
+	    if(header) {
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(RECORD_SIZE);
+	    }
+	}
+
+	@Override
+	public void write(ObpSlgSim.SeasonResult result) throws IOException {
+	    out.writeInt(result.season);
+	    writeTeam(result.highObp);
+	    writeTeam(result.highSlg);
+	}
+
+	private void writeTeam(ObpSlgSim.TeamSeason team) throws IOException {
+	    out.writeShort(team.wins);
+	    out.writeShort(team.losses);
+	    out.writeShort(team.runs);
+	    out.writeShort(thousandths(team.ba));
+	    out.writeShort(thousandths(team.obp));
+	    out.writeShort(thousandths(team.slg));
+	}
+
+	@Override
+	public void flush() throws IOException {
+	    out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+	    out.close();
+	}
+    }
+
+    /**
+     * Reads back what a Binary writer wrote.
+     */
+    static class BinaryReader implements Closeable {
+	private final DataInputStream in;
+
+	public BinaryReader(InputStream inIn) throws IOException {
+	    in = new DataInputStream(new BufferedInputStream(inIn, BUFFER_SIZE));
+	    if(in.readInt() != Binary.MAGIC || in.readInt() != Binary.VERSION || in.readInt() != Binary.RECORD_SIZE) {
+		throw new IOException("Not a binary season results file this version can read");
+	    }
+	}
+
+	/**
+	 * @return The next season, or null if there are no more.
+	 */
+	public ObpSlgSim.SeasonResult read() throws IOException {
+	    int season;
+	    try {
+		season = in.readInt();
+	    }
+	    catch(EOFException e) {
+		return null;
+	    }
+	    ObpSlgSim.TeamSeason highObp = readTeam("High OBP"), highSlg = readTeam("High SLG");
+	    return new ObpSlgSim.SeasonResult(season, highObp, highSlg);
+	}
+
+	private ObpSlgSim.TeamSeason readTeam(String name) throws IOException {
+	    int wins = in.readShort(), losses = in.readShort(), runs = in.readShort();
+	    double ba = in.readShort() / 1000.0, obp = in.readShort() / 1000.0, slg = in.readShort() / 1000.0;
+	    return new ObpSlgSim.TeamSeason(name, wins, losses, runs, ba, obp, slg);
+	}
+
+	@Override
+	public void close() throws IOException {
+	    in.close();
+	}
+    }
+}
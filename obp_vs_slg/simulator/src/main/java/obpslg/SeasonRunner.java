@@ -0,0 +1,167 @@
+package obpslg;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Simulates a range of seasons on a pool of threads and hands the results to a sink in season order.<br>
+ * Every season's random numbers come from its own seed derived from the master seed, so the results don't depend on the number of threads,
+ * and a sink that stops the run early stops it at the same season every time.
+ */
+class SeasonRunner {
+
+    //Receives finished seasons in order
+    interface Sink {
+	/**
+	 * @param result The next season.
+	 * @return True to keep going, false to stop the run after this season.
+	 */
+	boolean accept(ObpSlgSim.SeasonResult result) throws IOException;
+    }
+
+    private final long masterSeed;
+    private final int threads;
+    private final OutcomeSampler.Kind sampler;
+    private final RandomSource.Kind rng;
+    private final ObpSlgSim.Player highObp, highSlg;
+    private final String highObpName, highSlgName;
+    //plays seasons in lockstep batches instead of one at a time, if set
+    private BatchSimulator batch;
+    private int batchLanes;
+    //logs a sample of the games' plate appearances, if set
+    private PlayLog playLog;
+    //plays seasons in groups with matched random numbers, if set
+    private MatchedStreams.Mode pairing;
+
+    /**
+     * Makes a runner for the Eddie Collins team against the Rafael Devers team.
+     * @param masterSeedIn The seed of the whole run.
+     * @param threadsIn How many seasons to simulate at once.
+     * @param samplerIn How the players' plate appearances are drawn.
+     * @param rngIn The generator each season uses.
+     */
+    public SeasonRunner(long masterSeedIn, int threadsIn, OutcomeSampler.Kind samplerIn, RandomSource.Kind rngIn) {
+	this(masterSeedIn, threadsIn, samplerIn, rngIn, ObpSlgSim.eddieCollins(), "High OBP", ObpSlgSim.rafaelDevers(), "High SLG");
+    }
+
+    /**
+     * Makes a runner for any two players' teams.
+     * @param highObpIn The player the first team is made of. Every season copies it.
+     * @param highObpNameIn The name of the first team.
+     * @param highSlgIn The player the second team is made of. Every season copies it.
+     * @param highSlgNameIn The name of the second team.
+     */
+    public SeasonRunner(long masterSeedIn, int threadsIn, OutcomeSampler.Kind samplerIn, RandomSource.Kind rngIn,
+			ObpSlgSim.Player highObpIn, String highObpNameIn, ObpSlgSim.Player highSlgIn, String highSlgNameIn) {
+	masterSeed = masterSeedIn;
+	threads = threadsIn;
+	sampler = samplerIn;
+	rng = rngIn;
+	highObp = highObpIn;
+	highObpName = highObpNameIn;
+	highSlg = highSlgIn;
+	highSlgName = highSlgNameIn;
+    }
+
+    /**
+     * Simulates one season on the calling thread.
+     * @param season The number of the season.
+     * @return Its results.
+     */
+    public ObpSlgSim.SeasonResult simSeason(int season) {
+	RandomSource r = (pairing == null) ? rng.create(ObpSlgSim.seasonSeed(masterSeed, season)) : new MatchedStreams(pairing, masterSeed, season);
+	return ObpSlgSim.simSeason(season, new ObpSlgSim.Player(highObp), highObpName, new ObpSlgSim.Player(highSlg), highSlgName, r, sampler, playLog);
+    }
+
+    /**
+     * Makes the runner log the plate appearances of the games the log samples. The batch engine doesn't log anything.
+     * @param playLogIn The log.
+     */
+    public void logPlays(PlayLog playLogIn) {
+	playLog = playLogIn;
+    }
+
+    /**
+     * Makes the runner play its seasons in groups whose random numbers are matched to cancel out luck (see MatchedStreams), instead of with the generator.
+     * The batch engine doesn't do this.
+     * @param pairingIn How the seasons are grouped.
+     */
+    public void usePairing(MatchedStreams.Mode pairingIn) {
+	pairing = pairingIn;
+    }
+
+    /**
+     * Makes the runner play its seasons with the batch engine, which gives different seasons for a seed than the per-object engine
+     * (and always uses xoshiro256**) but has the same distribution of results.
+     * @param lanes How many seasons each batch plays at once. Each thread plays one batch at a time.
+     */
+    public void useBatchEngine(int lanes) {
+	batch = new BatchSimulator(highObp, highObpName, highSlg, highSlgName, masterSeed, BatchSimulator.bestBlock());
+	batchLanes = lanes;
+    }
+
+    /**
+     * Simulates seasons first through last, or until the sink says to stop.
+     * @param first The number of the first season.
+     * @param last The number of the last season.
+     * @param sink Where the seasons go, in order.
+     * @return The number of seasons the sink accepted.
+     */
+    public int run(int first, int last, Sink sink) throws IOException, InterruptedException, ExecutionException {
+	ExecutorService pool = Executors.newFixedThreadPool(threads);
+	try {
+	    return run(first, last, sink, pool);
+	}
+	finally {
+	    pool.shutdownNow();
+	}
+    }
+
+    /**
+     * Simulates seasons first through last, or until the sink says to stop, on a pool that other runs may be using too.
+     * At most 4 times as many seasons (or batches) as the runner has threads are waiting in the pool at once.
+     * @param pool Where the seasons are simulated. It is left running.
+     */
+    public int run(int first, int last, Sink sink, ExecutorService pool) throws IOException, InterruptedException, ExecutionException {
+	//seasons (or batches of them) are handed out to the pool a bounded number at a time and passed on in order as they finish
+	//(the LOG_ flags print from whichever thread is running the game, so use one thread with them)
+	Deque<Future<ObpSlgSim.SeasonResult[]>> pending = new ArrayDeque<Future<ObpSlgSim.SeasonResult[]>>();
+	long nextSeason = first;
+	int accepted = 0;
+	try {
+	    while(nextSeason <= last || !pending.isEmpty()) {
+		while(nextSeason <= last && pending.size() < 4 * threads) {
+		    final int season = (int)nextSeason;
+		    if(batch == null) {
+			//every season starts with brand new teams and players, just like a separate run would
+			pending.add(pool.submit(() -> new ObpSlgSim.SeasonResult[]{simSeason(season)}));
+			nextSeason++;
+		    }
+		    else {
+			final int count = (int)Math.min(batchLanes, last - nextSeason + 1);
+			pending.add(pool.submit(() -> batch.simSeasons(season, count)));
+			nextSeason += count;
+		    }
+		}
+		for(ObpSlgSim.SeasonResult result : pending.poll().get()) {
+		    accepted++;
+		    if(!sink.accept(result)) {
+			return accepted;
+		    }
+		}
+	    }
+	}
+	finally {
+	    //the seasons after the one the sink stopped at are of no use to anyone
+	    for(Future<ObpSlgSim.SeasonResult[]> future : pending) {
+		future.cancel(true);
+	    }
+	}
+	return accepted;
+    }
+}
@@ -0,0 +1,157 @@
+package obpslg;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulates a range of seasons in worker processes and hands the results to a sink in season order, like SeasonRunner does with threads.<br>
+ * The seasons are split into shards of consecutive seasons. Each shard is an ordinary run of the simulator (with --first-season) that writes
+ * its seasons in the binary results format to a file in a work directory, under a temporary name that it only gets once the worker exits cleanly.
+ * A shard whose worker fails, or whose file is missing or short, is run again. Every season's random numbers only depend on the master seed
+ * and the season number, so a shard comes out the same no matter which worker runs it or how often; the coordinator passes the shards' seasons to the sink in order,
+ * so the output and the summary (which is built from them exactly as in a single process) are the same as a single-process run's.<br>
+ * The workers only share the work directory with the coordinator, and each shard is a self-contained command line, so the same files would work on a shared file system.
+ * A shard's files are deleted once its seasons are passed on, and those of shards that weren't are deleted when the run stops early or fails,
+ * except for the log of a shard that failed every time, which is kept to see what went wrong.
+ */
+class ShardRunner {
+
+    //how many times a shard is tried before the run gives up
+    static final int MAX_ATTEMPTS = 3;
+
+    private final File workDir;
+    private final int workers, shardSize;
+    private final List<String> settings;
+
+    /**
+     * @param workDirIn The directory the shards are written to. It must exist.
+     * @param workersIn How many worker processes run at once.
+     * @param shardSizeIn How many seasons each shard has.
+     * @param settingsIn The command line options every worker gets, which have to give the seed and everything else that decides the seasons' results.
+     */
+    public ShardRunner(File workDirIn, int workersIn, int shardSizeIn, List<String> settingsIn) {
+	workDir = workDirIn;
+	workers = workersIn;
+	shardSize = shardSizeIn;
+	settings = settingsIn;
+    }
+
+    //the files a shard can leave in the work directory
+    private static final String[] SUFFIXES = {".bin", ".tmp", ".log"};
+
+    /**
+     * Simulates seasons first through last, or until the sink says to stop. Workers still running then are killed.
+     * @param first The number of the first season.
+     * @param last The number of the last season.
+     * @param sink Where the seasons go, in order.
+     * @return The number of seasons the sink accepted.
+     */
+    public int run(int first, int last, SeasonRunner.Sink sink) throws IOException, InterruptedException, ExecutionException {
+	ExecutorService pool = Executors.newFixedThreadPool(workers);
+	Deque<Future<File>> pending = new ArrayDeque<Future<File>>();
+	//the shards started whose seasons haven't all been passed on, in order
+	Deque<String> started = new ArrayDeque<String>();
+	long nextSeason = first;
+	int accepted = 0;
+	try {
+	    while(nextSeason <= last || !pending.isEmpty()) {
+		while(nextSeason <= last && pending.size() < 2 * workers) {
+		    final int from = (int)nextSeason, to = (int)Math.min(last, nextSeason + shardSize - 1);
+		    pending.add(pool.submit(() -> runShard(from, to)));
+		    started.add(name(from, to));
+		    nextSeason = (long)to + 1;
+		}
+		File shard = pending.poll().get();
+		try(InputStream in = new FileInputStream(shard);
+		    ResultWriter.BinaryReader reader = new ResultWriter.BinaryReader(in)) {
+		    ObpSlgSim.SeasonResult result;
+		    while((result = reader.read()) != null) {
+			accepted++;
+			if(!sink.accept(result)) {
+			    return accepted;
+			}
+		    }
+		}
+		shard.delete();
+		started.poll();
+	    }
+	}
+	finally {
+	    //stopped early or failed: kill the workers, wait for them to die and clean up what they left
+	    pool.shutdownNow();
+	    pool.awaitTermination(1, TimeUnit.MINUTES);
+	    for(String name : started) {
+		for(String suffix : SUFFIXES) {
+		    new File(workDir, name + suffix).delete();
+		}
+	    }
+	}
+	return accepted;
+    }
+
+    private static String name(int from, int to) {
+	return "shard-" + from + "-" + to;
+    }
+
+    /**
+     * @param partial The file the worker writes the seasons to.
+     * @param attempt How many times the shard has been tried, counting this time.
+     * @return The command line of a worker that simulates seasons from through to
+     */
+    List<String> command(int from, int to, File partial, int attempt) {
+	List<String> command = new ArrayList<String>();
+	command.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+	command.add("-cp");
+	command.add(System.getProperty("java.class.path"));
+	command.add(ObpSlgSim.class.getName());
+	command.add(Integer.toString(to));
+	command.add("--first-season");
+	command.add(Integer.toString(from));
+	command.addAll(settings);
+	command.add("--format");
+	command.add("binary");
+	command.add("--output");
+	command.add(partial.getPath());
+	return command;
+    }
+
+    //runs a worker for the seasons until one writes them all, and returns the file they're in
+    private File runShard(int from, int to) throws IOException, InterruptedException {
+	String name = name(from, to);
+	File done = new File(workDir, name + ".bin"), partial = new File(workDir, name + ".tmp"), log = new File(workDir, name + ".log");
+	long expected = ResultWriter.Binary.HEADER_SIZE + (long)(to - from + 1) * ResultWriter.Binary.RECORD_SIZE;
+	for(int attempt = 1; ; attempt++) {
+	    Process worker = new ProcessBuilder(command(from, to, partial, attempt)).redirectErrorStream(true).redirectOutput(log).start();
+	    int exit;
+	    try {
+		exit = worker.waitFor();
+	    }
+	    finally {
+		//only still running if the run was stopped or interrupted, and then waited for so it doesn't write anything after its files are deleted
+		worker.destroyForcibly().waitFor();
+	    }
+	    if(exit == 0 && partial.length() == expected && partial.renameTo(done)) {
+		log.delete();
+		return done;
+	    }
+	    String problem = (exit != 0) ? "exited with " + exit : "wrote " + partial.length() + " of " + expected + " bytes";
+	    if(attempt == MAX_ATTEMPTS) {
+		File failed = new File(workDir, name + ".failed.log");
+		log.renameTo(failed);
+		throw new IOException("The worker for seasons " + from + " to " + to + " " + problem + " " + attempt + " times, see " + failed);
+	    }
+	    System.err.println("The worker for seasons " + from + " to " + to + " " + problem + ", trying again");
+	}
+    }
+}
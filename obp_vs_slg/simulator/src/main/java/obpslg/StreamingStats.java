@@ -0,0 +1,305 @@
+package obpslg;
+
+import java.io.PrintStream;
+
+/**
+ * Summarizes seasons as they finish, so a run can be described (and stopped) without keeping or re-reading its results.<br>
+ * Every stat tracked here is a whole number (wins, runs, and rate stats in thousandths), so each one keeps an exact histogram
+ * next to its running mean and variance. That makes medians, other quantiles and "at least N" counts exact, and lets two summaries be merged.
+ */
+class StreamingStats {
+
+    //the z-score of a two-sided 95% confidence interval
+    static final double Z_95 = 1.959963984540054;
+    //never stop early before this many seasons, so the variance estimate means something
+    static final int MIN_SEASONS = 30;
+
+    //One whole-number stat: Welford's running mean and variance plus a histogram of every value seen
+    static class Metric {
+	private long n;
+	private double mean, m2;
+	private long[] counts = new long[0];
+	//the value counts[0] stands for
+	private int offset;
+
+	/**
+	 * @param value The stat from one more season.
+	 */
+	public void add(int value) {
+	    n++;
+	    double delta = value - mean;
+	    mean += delta / n;
+	    m2 += delta * (value - mean);
+	    count(value, 1);
+	}
+
+	/**
+	 * Adds the same value many times at once, e.g. from a histogram.
+	 * @param value The stat.
+	 * @param times How many seasons had it.
+	 */
+	public void add(int value, long times) {
+	    if(times == 0) {
+		return;
+	    }
+	    long total = n + times;
+	    double delta = value - mean;
+	    m2 += delta * delta * n * times / total;
+	    mean += delta * times / total;
+	    n = total;
+	    count(value, times);
+	}
+
+	private void count(int value, long times) {
+	    if(counts.length == 0) {
+		counts = new long[16];
+		offset = value;
+	    }
+	    if(value < offset) {
+		long[] grown = new long[counts.length + (offset - value) + 16];
+		System.arraycopy(counts, 0, grown, grown.length - counts.length, counts.length);
+		offset -= grown.length - counts.length;
+		counts = grown;
+	    }
+	    if(value - offset >= counts.length) {
+		long[] grown = new long[Math.max(2 * counts.length, value - offset + 16)];
+		System.arraycopy(counts, 0, grown, 0, counts.length);
+		counts = grown;
+	    }
+	    counts[value - offset] += times;
+	}
+
+	/**
+	 * Adds everything another metric has seen to this one (Chan et al.'s parallel update for the moments).
+	 * @param other The other metric.
+	 */
+	public void merge(Metric other) {
+	    if(other.n == 0) {
+		return;
+	    }
+	    long total = n + other.n;
+	    double delta = other.mean - mean;
+	    m2 += other.m2 + delta * delta * n * other.n / total;
+	    mean += delta * other.n / total;
+	    n = total;
+	    for(int i = 0; i < other.counts.length; i++) {
+		if(other.counts[i] > 0) {
+		    count(other.offset + i, other.counts[i]);
+		}
+	    }
+	}
+
+	public long getCount() {
+	    return n;
+	}
+
+	public double getMean() {
+	    return mean;
+	}
+
+	/**
+	 * @return The sample variance
+	 */
+	public double getVariance() {
+	    return (n > 1) ? m2 / (n - 1) : 0;
+	}
+
+	/**
+	 * @return The half-width of the 95% confidence interval on the mean
+	 */
+	public double getHalfWidth() {
+	    return (n > 1) ? Z_95 * Math.sqrt(getVariance() / n) : Double.POSITIVE_INFINITY;
+	}
+
+	public int getMin() {
+	    for(int i = 0; i < counts.length; i++) {
+		if(counts[i] > 0) {
+		    return offset + i;
+		}
+	    }
+	    return 0;
+	}
+
+	public int getMax() {
+	    for(int i = counts.length - 1; i >= 0; i--) {
+		if(counts[i] > 0) {
+		    return offset + i;
+		}
+	    }
+	    return 0;
+	}
+
+	/**
+	 * @param q The quantile, from 0 to 1.
+	 * @return The smallest value with at least a fraction q of the seasons at or below it (so 0.5 is the median)
+	 */
+	public int getQuantile(double q) {
+	    long needed = Math.max(1, (long)Math.ceil(q * n));
+	    long seen = 0;
+	    for(int i = 0; i < counts.length; i++) {
+		seen += counts[i];
+		if(seen >= needed) {
+		    return offset + i;
+		}
+	    }
+	    return getMax();
+	}
+
+	/**
+	 * @return The number of seasons with exactly the given value
+	 */
+	public long countOf(int value) {
+	    return (value >= offset && value - offset < counts.length) ? counts[value - offset] : 0;
+	}
+
+	/**
+	 * @return The number of seasons with a value of at least the given value
+	 */
+	public long countAtLeast(int value) {
+	    long count = 0;
+	    for(int i = Math.max(0, value - offset); i < counts.length; i++) {
+		count += counts[i];
+	    }
+	    return count;
+	}
+    }
+
+    //The stats of one team
+    static class TeamStats {
+	final String name;
+	final Metric wins = new Metric(), runs = new Metric(), ba = new Metric(), obp = new Metric(), slg = new Metric(), ops = new Metric();
+
+	TeamStats(String nameIn) {
+	    name = nameIn;
+	}
+
+	void add(ObpSlgSim.TeamSeason team) {
+	    wins.add(team.wins);
+	    runs.add(team.runs);
+	    ba.add(ResultWriter.thousandths(team.ba));
+	    obp.add(ResultWriter.thousandths(team.obp));
+	    slg.add(ResultWriter.thousandths(team.slg));
+	    ops.add(ResultWriter.thousandths(team.getOPS()));
+	}
+
+	void merge(TeamStats other) {
+	    wins.merge(other.wins);
+	    runs.merge(other.runs);
+	    ba.merge(other.ba);
+	    obp.merge(other.obp);
+	    slg.merge(other.slg);
+	    ops.merge(other.ops);
+	}
+    }
+
+    final TeamStats highObp = new TeamStats("High OBP"), highSlg = new TeamStats("High SLG");
+    //the high OBP team's wins minus the high SLG team's wins, each season
+    final Metric winGap = new Metric();
+    private int games;
+    //with seasons played in groups whose random numbers are matched, the sum of each group's gaps; the groups are independent but their seasons aren't
+    private int groupSize = 1, groupGap, groupSeasons;
+    final Metric groupGaps = new Metric();
+
+    /**
+     * Makes the confidence intervals treat the seasons as groups (see MatchedStreams), which have to be added in order.
+     * @param groupSizeIn How many seasons each group has.
+     */
+    public void setGroupSize(int groupSizeIn) {
+	groupSize = groupSizeIn;
+    }
+
+    /**
+     * @param result The next season.
+     */
+    public void add(ObpSlgSim.SeasonResult result) {
+	highObp.add(result.highObp);
+	highSlg.add(result.highSlg);
+	winGap.add(result.highObp.wins - result.highSlg.wins);
+	games = result.highObp.wins + result.highObp.losses;
+	groupGap += result.highObp.wins - result.highSlg.wins;
+	if(++groupSeasons == groupSize) {
+	    groupGaps.add(groupGap);
+	    groupGap = 0;
+	    groupSeasons = 0;
+	}
+    }
+
+    /**
+     * @param other Another summary, e.g. of a different range of seasons. It is added to this one.
+     */
+    public void merge(StreamingStats other) {
+	highObp.merge(other.highObp);
+	highSlg.merge(other.highSlg);
+	winGap.merge(other.winGap);
+	groupGaps.merge(other.groupGaps);
+	games = Math.max(games, other.games);
+    }
+
+    /**
+     * @return The number of seasons summarized
+     */
+    public long getSeasons() {
+	return winGap.getCount();
+    }
+
+    /**
+     * @return The mean gap in winning percentage between the teams, high OBP minus high SLG
+     */
+    public double getWpctGap() {
+	return winGap.getMean() / games;
+    }
+
+    /**
+     * @return The half-width of the 95% confidence interval on the gap in winning percentage
+     */
+    public double getWpctGapHalfWidth() {
+	return (groupSize == 1) ? winGap.getHalfWidth() / games : groupGaps.getHalfWidth() / groupSize / games;
+    }
+
+    /**
+     * @return How many times as many independent seasons it would take to know the gap as precisely as the groups of seasons do (1 without groups)
+     */
+    public double getVarianceReduction() {
+	return (groupSize == 1) ? 1 : winGap.getVariance() * groupSize / groupGaps.getVariance();
+    }
+
+    /**
+     * @param target The widest acceptable half-width of the 95% confidence interval on the gap in winning percentage.
+     * @return True iff enough seasons have been summarized to know the gap that precisely, and they make up whole groups
+     */
+    public boolean isPreciseEnough(double target) {
+	return groupGaps.getCount() * groupSize >= MIN_SEASONS && groupSeasons == 0 && getWpctGapHalfWidth() < target;
+    }
+
+    /**
+     * Prints a summary like the one in the README's Results section.
+     * @param out Where to print it.
+     */
+    public void print(PrintStream out) {
+	long seasons = getSeasons();
+	out.println("In " + seasons + " seasons:");
+	long obpMore = winGap.countAtLeast(1), even = winGap.countAtLeast(0) - obpMore;
+	out.println("- " + even + " resulted in each team winning the same number of games.");
+	out.println("- " + (seasons - obpMore - even) + " resulted in Team High SLG winning more games.");
+	out.println("- The other " + obpMore + " resulted in Team High OBP winning more games.");
+	out.println("- Winning percentage gap (High OBP - High SLG): " + round(getWpctGap()) + " +/- " + round(getWpctGapHalfWidth()) + " (95% confidence)");
+	if(groupSize > 1) {
+	    out.println("- Played in " + groupGaps.getCount() + " groups of " + groupSize + " seasons with matched random numbers, which make the gap as precise as "
+			+ Math.round(getVarianceReduction() * seasons) + " independent seasons would (" + round(getVarianceReduction()) + " times as many)");
+	}
+	for(TeamStats team : new TeamStats[]{highObp, highSlg}) {
+	    out.println("Team " + team.name + ":");
+	    out.println("- Wins: mean " + round(team.wins.getMean()) + " (+/- " + round(team.wins.getHalfWidth()) + "), median " + team.wins.getQuantile(0.5)
+			+ ", min " + team.wins.getMin() + ", max " + team.wins.getMax());
+	    out.println("- Won at least 90 games " + team.wins.countAtLeast(90) + " times, at least 95 " + team.wins.countAtLeast(95) + " times, at least 100 " + team.wins.countAtLeast(100) + " times");
+	    out.println("- Runs: mean " + round(team.runs.getMean()) + " (+/- " + round(team.runs.getHalfWidth()) + "), median " + team.runs.getQuantile(0.5)
+			+ ", min " + team.runs.getMin() + ", max " + team.runs.getMax());
+	    out.println("- Average batting line: " + round(team.ba.getMean() / 1000) + "/" + round(team.obp.getMean() / 1000) + "/" + round(team.slg.getMean() / 1000)
+			+ " (" + round(team.ops.getMean() / 1000) + " OPS)");
+	}
+    }
+
+    private static double round(double value) {
+	return (double)Math.round(1000 * value)/1000;
+    }
+}
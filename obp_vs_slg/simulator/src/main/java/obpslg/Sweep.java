@@ -0,0 +1,320 @@
+package obpslg;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Sweeps a grid of hitter profiles, given as OBP, SLG, strikeout rate and home run rate, and simulates each one against a reference profile.<br>
+ * Every point's results are saved in an on-disk cache keyed by both stat lines, the simulation constants, the seed and the run settings,
+ * so rerunning a sweep that overlaps an old one only simulates the new points.
+ * All points use the same season seeds, so neighboring points differ because of their profiles rather than their luck.
+ */
+class Sweep {
+
+    //bump this whenever a change to the simulation changes its results, so old cache entries stop matching
+    static final int CACHE_VERSION = 1;
+    //the plate appearances of a generated profile; its OBP and SLG come within about a thousandth of the targets
+    static final int PROFILE_PA = 10000;
+    //doubles plus triples per single and triples per double, about the MLB averages in 2023 (26031 1B, 8228 2B, 724 3B)
+    static final double EXTRA_BASE_RATIO = (8228.0 + 724)/26031;
+    static final double TRIPLE_RATIO = 724.0/8228;
+    //the sweep parameters, in the order a point stores them
+    static final String[] PARAMETERS = {"obp", "slg", "k", "hr"};
+    //the default reference profile, about the MLB average in 2023
+    static final double[] LEAGUE_AVERAGE = {.320, .414, .227, .031};
+
+    /**
+     * Makes a player with the given rates. Walks and hits by pitch make up whatever OBP the hits don't,
+     * and the hits other than home runs are split into singles, doubles and triples in the league average proportions.
+     * @param obp The on-base percentage.
+     * @param slg The slugging percentage.
+     * @param k Strikeouts per plate appearance.
+     * @param hr Home runs per plate appearance.
+     * @return The player, or null if no stat line has all four rates.
+     */
+    static ObpSlgSim.Player profile(double obp, double slg, double k, double hr) {
+	//solve for singles per PA (s), given walks = obp - hr - s * (1 + EXTRA_BASE_RATIO) and slg * (1 - walks) = total bases per PA
+	double hitsPerSingle = 1 + EXTRA_BASE_RATIO;
+	double basesPerSingle = 1 + EXTRA_BASE_RATIO * (2 + 3 * TRIPLE_RATIO)/(1 + TRIPLE_RATIO);
+	double s = (slg * (1 - obp + hr) - 4 * hr)/(basesPerSingle - slg * hitsPerSingle);
+	double doubles = s * EXTRA_BASE_RATIO/(1 + TRIPLE_RATIO);
+	int singles = (int)Math.round(PROFILE_PA * s);
+	int twoBase = (int)Math.round(PROFILE_PA * doubles);
+	int threeBase = (int)Math.round(PROFILE_PA * doubles * TRIPLE_RATIO);
+	int homers = (int)Math.round(PROFILE_PA * hr);
+	int strikeouts = (int)Math.round(PROFILE_PA * k);
+	int bbHbp = (int)Math.round(PROFILE_PA * obp) - singles - twoBase - threeBase - homers;
+	int oip = PROFILE_PA - strikeouts - bbHbp - singles - twoBase - threeBase - homers;
+	if(s < 0 || basesPerSingle <= slg * hitsPerSingle || bbHbp < 0 || oip < 0 || strikeouts < 0 || homers < 0) {
+	    return null;
+	}
+	return new ObpSlgSim.Player(PROFILE_PA, strikeouts, oip, bbHbp, singles, twoBase, threeBase, homers);
+    }
+
+    /**
+     * Parses a sweep such as obp=.300:.420:.010,slg=.400,k=.2:.3:.05 into the points of its grid.
+     * Each parameter is one value or start:end:step. Parameters left out take the value in defaults.
+     * @param spec The sweep.
+     * @param defaults The value of each parameter that isn't given, in the order of PARAMETERS.
+     * @return Every point of the grid, as values in the order of PARAMETERS, with the last parameter changing fastest.
+     */
+    static List<double[]> grid(String spec, double[] defaults) {
+	double[][] values = new double[PARAMETERS.length][];
+	for(String part : spec.split(",")) {
+	    String[] nameValue = part.split("=");
+	    int param = parameter(nameValue[0].trim());
+	    if(nameValue.length != 2 || param < 0) {
+		throw new IllegalArgumentException("Not a sweep parameter: " + part);
+	    }
+	    String[] range = nameValue[1].split(":");
+	    if(range.length == 1) {
+		values[param] = new double[]{Double.parseDouble(range[0])};
+	    }
+	    else if(range.length == 3) {
+		double start = Double.parseDouble(range[0]), end = Double.parseDouble(range[1]), step = Double.parseDouble(range[2]);
+		if(step <= 0 || end < start) {
+		    throw new IllegalArgumentException("Bad range: " + part);
+		}
+		//round to the step so that floating point error can't drop the end of the range
+		int steps = (int)Math.round((end - start)/step);
+		values[param] = new double[steps + 1];
+		for(int i = 0; i <= steps; i++) {
+		    values[param][i] = start + i * step;
+		}
+	    }
+	    else {
+		throw new IllegalArgumentException("Expected a value or start:end:step: " + part);
+	    }
+	}
+	List<double[]> points = new ArrayList<double[]>();
+	points.add(new double[PARAMETERS.length]);
+	for(int param = 0; param < PARAMETERS.length; param++) {
+	    double[] choices = (values[param] != null) ? values[param] : new double[]{defaults[param]};
+	    List<double[]> expanded = new ArrayList<double[]>();
+	    for(double[] point : points) {
+		for(double value : choices) {
+		    double[] next = point.clone();
+		    next[param] = value;
+		    expanded.add(next);
+		}
+	    }
+	    points = expanded;
+	}
+	return points;
+    }
+
+    private static int parameter(String name) {
+	for(int i = 0; i < PARAMETERS.length; i++) {
+	    if(PARAMETERS[i].equalsIgnoreCase(name)) {
+		return i;
+	    }
+	}
+	return -1;
+    }
+
+    //The totals of one point's seasons against the reference
+    static class PointResult {
+	final int seasons;
+	//long, since millions of seasons have more runs than an int holds
+	final long wins, runs, runsAllowed;
+	public PointResult(int seasonsIn, long winsIn, long runsIn, long runsAllowedIn) {
+	    seasons = seasonsIn;
+	    wins = winsIn;
+	    runs = runsIn;
+	    runsAllowed = runsAllowedIn;
+	}
+    }
+
+    /**
+     * The results of every point simulated so far, kept in a text file with one line per point: the key, a tab, then the seasons, wins, runs and runs allowed.
+     * New results are appended as soon as they are known, so an interrupted sweep keeps what it finished.
+     */
+    static class Cache {
+	private final Map<String, PointResult> results = new HashMap<String, PointResult>();
+	private final File file;
+
+	/**
+	 * Loads the cache in the file, if there is one.
+	 * @param fileIn The cache file. May be null to only keep results in memory.
+	 */
+	public Cache(File fileIn) throws IOException {
+	    file = fileIn;
+	    if(file == null || !file.exists()) {
+		return;
+	    }
+	    try(BufferedReader in = new BufferedReader(new FileReader(file))) {
+		String line;
+		while((line = in.readLine()) != null) {
+		    String[] keyValue = line.split("\t");
+		    String[] totals = (keyValue.length == 2) ? keyValue[1].split(" ") : new String[0];
+		    if(totals.length != 4) {
+			//most likely the last line of a sweep that was killed while writing it
+			continue;
+		    }
+		    results.put(keyValue[0], new PointResult(Integer.parseInt(totals[0]), Long.parseLong(totals[1]), Long.parseLong(totals[2]), Long.parseLong(totals[3])));
+		}
+	    }
+	}
+
+	public PointResult get(String key) {
+	    return results.get(key);
+	}
+
+	public void put(String key, PointResult result) throws IOException {
+	    results.put(key, result);
+	    if(file != null) {
+		try(PrintWriter out = new PrintWriter(new FileWriter(file, true))) {
+		    out.println(key + "\t" + result.seasons + " " + result.wins + " " + result.runs + " " + result.runsAllowed);
+		}
+	    }
+	}
+
+	/**
+	 * @return The number of results in the cache
+	 */
+	public int size() {
+	    return results.size();
+	}
+    }
+
+    private final double[] reference;
+    private final String referenceLine;
+    private final int seasons;
+    private final long masterSeed;
+    private final OutcomeSampler.Kind sampler;
+    private final RandomSource.Kind rng;
+
+    /**
+     * @param referenceIn The rates of the profile every point plays against, in the order of PARAMETERS.
+     * @param seasonsIn How many seasons each point plays.
+     * @param masterSeedIn The seed the seasons' seeds come from. Every point uses the same ones.
+     * @param samplerIn How the players' plate appearances are drawn.
+     * @param rngIn The generator each season uses.
+     */
+    public Sweep(double[] referenceIn, int seasonsIn, long masterSeedIn, OutcomeSampler.Kind samplerIn, RandomSource.Kind rngIn) {
+	if(profile(referenceIn[0], referenceIn[1], referenceIn[2], referenceIn[3]) == null) {
+	    throw new IllegalArgumentException("No stat line has the reference profile's rates");
+	}
+	reference = referenceIn;
+	referenceLine = statLine(profile(reference[0], reference[1], reference[2], reference[3]));
+	seasons = seasonsIn;
+	masterSeed = masterSeedIn;
+	sampler = samplerIn;
+	rng = rngIn;
+    }
+
+    /**
+     * @return The cache key of a point: everything its results depend on
+     */
+    String key(ObpSlgSim.Player player) {
+	return "v" + CACHE_VERSION + " " + statLine(player) + " vs " + referenceLine
+	    + " po=" + ObpSlgSim.productiveOutRatio + " dp=" + ObpSlgSim.doublePlayRatio + " ih=" + ObpSlgSim.infieldHitRatio
+	    + " seed=" + masterSeed + " seasons=" + seasons + " " + sampler + " " + rng;
+    }
+
+    private static String statLine(ObpSlgSim.Player player) {
+	StringBuilder line = new StringBuilder();
+	for(int stat : player.getStatLine()) {
+	    line.append((line.length() == 0) ? "" : "/").append(stat);
+	}
+	return line.toString();
+    }
+
+    /**
+     * Simulates one point's seasons on the calling thread.
+     * @param player The point's profile.
+     * @return Its totals over all of the seasons.
+     */
+    PointResult simulate(ObpSlgSim.Player player) {
+	long wins = 0, runs = 0, runsAllowed = 0;
+	for(int season = 1; season <= seasons; season++) {
+	    ObpSlgSim.Player opponent = profile(reference[0], reference[1], reference[2], reference[3]);
+	    RandomSource r = rng.create(ObpSlgSim.seasonSeed(masterSeed, season));
+	    ObpSlgSim.SeasonResult result = ObpSlgSim.simSeason(season, new ObpSlgSim.Player(player), "Profile", opponent, "Reference", r, sampler, null);
+	    wins += result.highObp.wins;
+	    runs += result.highObp.runs;
+	    runsAllowed += result.highSlg.runs;
+	}
+	return new PointResult(seasons, wins, runs, runsAllowed);
+    }
+
+    /**
+     * Simulates every point of the grid that isn't in the cache and prints a CSV line for every point, in the order of the grid.
+     * Points that no stat line can have are printed with empty results.
+     * @param points The grid, from grid().
+     * @param cache Where results are looked up and saved.
+     * @param threads How many points to simulate at once.
+     * @param out Where to print the CSV.
+     * @return The number of points that had to be simulated.
+     */
+    public int run(List<double[]> points, Cache cache, int threads, PrintStream out) throws IOException, InterruptedException, ExecutionException {
+	out.println("OBP,SLG,K,HR,Profile OBP,Profile SLG,Seasons,Wins,Win PCT,Runs Per Game,Runs Allowed Per Game");
+	ExecutorService pool = Executors.newFixedThreadPool(threads);
+	Deque<Future<PointResult>> pending = new ArrayDeque<Future<PointResult>>();
+	Deque<String> keys = new ArrayDeque<String>();
+	int next = 0, printed = 0, simulated = 0;
+	try {
+	    //like SeasonRunner, keep a bounded number of points in flight and print them in order as they finish
+	    while(printed < points.size()) {
+		while(next < points.size() && pending.size() < 4 * threads) {
+		    double[] point = points.get(next++);
+		    final ObpSlgSim.Player player = profile(point[0], point[1], point[2], point[3]);
+		    String key = (player == null) ? null : key(player);
+		    PointResult cached = (key == null) ? null : cache.get(key);
+		    if(player == null || cached != null) {
+			pending.add(CompletableFuture.completedFuture(cached));
+			keys.add("");
+		    }
+		    else {
+			pending.add(pool.submit(() -> simulate(player)));
+			keys.add(key);
+			simulated++;
+		    }
+		}
+		double[] point = points.get(printed++);
+		PointResult result = pending.poll().get();
+		String key = keys.poll();
+		if(!key.isEmpty()) {
+		    cache.put(key, result);
+		}
+		out.println(csvLine(point, result));
+	    }
+	}
+	finally {
+	    pool.shutdownNow();
+	}
+	return simulated;
+    }
+
+    private static String csvLine(double[] point, PointResult result) {
+	ObpSlgSim.Player player = profile(point[0], point[1], point[2], point[3]);
+	StringBuilder line = new StringBuilder(String.format(Locale.ROOT, "%.3f,%.3f,%.3f,%.3f", point[0], point[1], point[2], point[3]));
+	if(result == null) {
+	    return line.append(",,,,,,,").toString();
+	}
+	int[] stats = player.getStatLine();
+	int timesOnBase = stats[3] + stats[4] + stats[5] + stats[6] + stats[7];
+	int totalBases = stats[4] + 2 * stats[5] + 3 * stats[6] + 4 * stats[7];
+	double games = (double)result.seasons * League.SEASON_GAMES;
+	line.append(String.format(Locale.ROOT, ",%.3f,%.3f,%d,%.2f,%.3f,%.3f,%.3f", (double)timesOnBase/stats[0], (double)totalBases/(stats[0] - stats[3]),
+				  result.seasons, (double)result.wins/result.seasons, result.wins/games, result.runs/games, result.runsAllowed/games));
+	return line.toString();
+    }
+}
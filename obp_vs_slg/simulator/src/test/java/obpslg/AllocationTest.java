@@ -0,0 +1,47 @@
+package obpslg;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that playing games allocates nothing once the simulation is warmed up, for every sampler and random number generator.<br>
+ * The count comes from the JVM's per-thread allocation counter, which, unlike the GC profiler, isn't fooled by objects escape analysis happens to remove in one benchmark but not in real use.
+ */
+public class AllocationTest {
+
+    private static final int GAMES = 50000;
+
+    @Test
+    public void gamesDontAllocate() {
+	com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+	long thread = Thread.currentThread().getId();
+	StringBuilder allocating = new StringBuilder();
+	for(OutcomeSampler.Kind sampler : OutcomeSampler.Kind.values()) {
+	    for(RandomSource.Kind rng : RandomSource.Kind.values()) {
+		ObpSlgSim.Player p1 = ObpSlgSim.eddieCollins(), p2 = ObpSlgSim.rafaelDevers();
+		p1.setSampler(sampler);
+		p2.setSampler(sampler);
+		ObpSlgSim.Team highObp = ObpSlgSim.buildTeam(p1, "High OBP"), highSlg = ObpSlgSim.buildTeam(p2, "High SLG");
+		RandomSource r = rng.create(42);
+		ObpSlgSim.GameState game = ObpSlgSim.gameState();
+		//warm up, so the interpreter and the compiler's own allocations are out of the way
+		for(int i = 0; i < GAMES; i++) {
+		    ObpSlgSim.playGame(highObp, highSlg, r, null, game);
+		}
+		long before = threads.getThreadAllocatedBytes(thread);
+		for(int i = 0; i < GAMES; i++) {
+		    ObpSlgSim.playGame(highObp, highSlg, r, null, game);
+		}
+		long allocated = threads.getThreadAllocatedBytes(thread) - before;
+		//the counter itself can allocate a little, so allow less than a byte per game
+		if(allocated >= GAMES) {
+		    allocating.append(String.format(" %s/%s: %.3f bytes/game", sampler, rng, (double)allocated/GAMES));
+		}
+	    }
+	}
+	assertTrue(allocating.length() == 0, "Playing games allocates:" + allocating);
+    }
+}
@@ -0,0 +1,225 @@
+package obpslg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the precomputed transitions against the baserunning rules simInning followed before there were tables:
+ * every one of the 24 states with every plate appearance outcome, ending in the same state with the same runs and the same sub-rolls drawn.
+ */
+public class BaseOutStatesTest {
+
+    //a source whose every double is the given roll, for choosing a sub-roll's result
+    private static RandomSource roll(double value) {
+	return new RandomSource() {
+	    @Override
+	    public long nextLong() {
+		throw new UnsupportedOperationException();
+	    }
+
+	    @Override
+	    public double nextDouble() {
+		return value;
+	    }
+
+	    @Override
+	    public RandomSource split() {
+		throw new UnsupportedOperationException();
+	    }
+	};
+    }
+
+    /**
+     * One plate appearance under the old simInning rules, which kept the runners in an array.
+     * @return The state after it and the runs scored, or a state of -1 if it ended the game on the spot.
+     */
+    private static int[] oldRules(int outcome, int state, RandomSource r, boolean runFromThirdWins) {
+	int outs = state / 8, runs = 0;
+	boolean[] baserunners = {(state & BaseOutStates.FIRST) != 0, (state & BaseOutStates.SECOND) != 0, (state & BaseOutStates.THIRD) != 0};
+	switch(outcome) {
+	case 0:
+	    outs++;
+	    break;
+	case 1:
+	    if(outs < 2) {
+		double prodOutRoll = r.nextDouble();
+		boolean productive;
+		if(baserunners[0]) {
+		    if(prodOutRoll < ObpSlgSim.doublePlayRatio) {
+			productive = false;
+			outs++;
+			if(outs < 2) {
+			    if(baserunners[2]) {
+				runs++;
+			    }
+			    baserunners[2] = baserunners[1];
+			    baserunners[1] = false;
+			    baserunners[0] = false;
+			}
+		    }
+		    else {
+			productive = prodOutRoll < ObpSlgSim.doublePlayRatio + ObpSlgSim.productiveOutRatio;
+		    }
+		}
+		else {
+		    productive = prodOutRoll < ObpSlgSim.productiveOutRatio;
+		}
+		if(productive) {
+		    if(baserunners[2]) {
+			runs++;
+		    }
+		    baserunners[2] = baserunners[1];
+		    baserunners[1] = baserunners[0];
+		    baserunners[0] = false;
+		}
+	    }
+	    outs++;
+	    break;
+	case 2:
+	    if(baserunners[0]) {
+		if(baserunners[1]) {
+		    if(baserunners[2]) {
+			runs++;
+		    }
+		    else {
+			baserunners[2] = true;
+		    }
+		}
+		else {
+		    baserunners[1] = true;
+		}
+	    }
+	    else {
+		baserunners[0] = true;
+	    }
+	    break;
+	case 3:
+	    if(baserunners[2]) {
+		runs++;
+		if(runFromThirdWins) {
+		    return new int[]{-1, runs};
+		}
+	    }
+	    baserunners[2] = baserunners[1];
+	    baserunners[1] = baserunners[0];
+	    baserunners[0] = true;
+	    if(r.nextDouble() >= ObpSlgSim.infieldHitRatio && baserunners[2]) {
+		runs++;
+		baserunners[2] = false;
+	    }
+	    break;
+	case 4:
+	    runs += (baserunners[2] ? 1 : 0) + (baserunners[1] ? 1 : 0);
+	    baserunners[2] = baserunners[0];
+	    baserunners[1] = true;
+	    baserunners[0] = false;
+	    break;
+	case 5:
+	    runs += (baserunners[2] ? 1 : 0) + (baserunners[1] ? 1 : 0) + (baserunners[0] ? 1 : 0);
+	    baserunners[2] = true;
+	    baserunners[1] = false;
+	    baserunners[0] = false;
+	    break;
+	default:
+	    runs += (baserunners[2] ? 1 : 0) + (baserunners[1] ? 1 : 0) + (baserunners[0] ? 1 : 0) + 1;
+	    baserunners[2] = false;
+	    baserunners[1] = false;
+	    baserunners[0] = false;
+	    break;
+	}
+	if(outs >= 3) {
+	    return new int[]{BaseOutStates.INNING_OVER, runs};
+	}
+	return new int[]{outs * 8 + (baserunners[0] ? BaseOutStates.FIRST : 0) + (baserunners[1] ? BaseOutStates.SECOND : 0) + (baserunners[2] ? BaseOutStates.THIRD : 0), runs};
+    }
+
+    private static int next(int event, int state) {
+	return BaseOutStates.NEXT_STATE[event * BaseOutStates.STATES + state];
+    }
+
+    private static int runs(int event, int state) {
+	return BaseOutStates.RUNS[event * BaseOutStates.STATES + state];
+    }
+
+    @Test
+    public void everyStateAndOutcomeFollowsTheOldRules() {
+	for(int state = 0; state < BaseOutStates.STATES; state++) {
+	    for(int outcome = 0; outcome < 7; outcome++) {
+		for(boolean runFromThirdWins : new boolean[]{false, true}) {
+		    //enough seeds to land in every branch of the sub-rolls
+		    for(long seed = 0; seed < 300; seed++) {
+			RandomSource old = RandomSource.Kind.XOSHIRO.create(seed), r = RandomSource.Kind.XOSHIRO.create(seed);
+			int[] expected = oldRules(outcome, state, old, runFromThirdWins);
+			int event = BaseOutStates.resolve(outcome, state, r, runFromThirdWins);
+			String where = "state " + state + ", outcome " + outcome + ", walk-off " + runFromThirdWins + ", seed " + seed;
+			assertEquals(expected[1], runs(event, state), where);
+			if(expected[0] >= 0) {
+			    assertEquals(expected[0], next(event, state), where);
+			}
+			//the same sub-rolls were drawn
+			assertEquals(old.nextLong(), r.nextLong(), where);
+		    }
+		}
+	    }
+	}
+    }
+
+    @Test
+    public void doublePlays() {
+	double gidp = ObpSlgSim.doublePlayRatio / 2;
+	for(int bases = 0; bases < 8; bases++) {
+	    int event = BaseOutStates.resolve(1, bases, roll(gidp), false);
+	    if((bases & BaseOutStates.FIRST) == 0) {
+		//no force at second, so the low roll is a productive out instead
+		assertEquals(BaseOutStates.PRODUCTIVE_OUT, event);
+		continue;
+	    }
+	    assertEquals(BaseOutStates.DOUBLE_PLAY, event);
+	    //nobody out: two outs, the runner on third scores, the runner on second takes third
+	    int third = ((bases & BaseOutStates.SECOND) != 0) ? BaseOutStates.THIRD : 0;
+	    assertEquals(16 + third, next(event, bases));
+	    assertEquals((bases & BaseOutStates.THIRD) != 0 ? 1 : 0, runs(event, bases));
+	    //one out: the inning is over and nobody scores
+	    assertEquals(BaseOutStates.DOUBLE_PLAY, BaseOutStates.resolve(1, 8 + bases, roll(gidp), false));
+	    assertEquals(BaseOutStates.INNING_OVER, next(event, 8 + bases));
+	    assertEquals(0, runs(event, 8 + bases));
+	}
+	//two outs: no sub-roll at all
+	assertEquals(BaseOutStates.OUT_IN_PLAY, BaseOutStates.resolve(1, 16 + BaseOutStates.FIRST, null, false));
+    }
+
+    @Test
+    public void subRolls() {
+	int first = BaseOutStates.FIRST, second = BaseOutStates.SECOND;
+	double dp = ObpSlgSim.doublePlayRatio, po = ObpSlgSim.productiveOutRatio, ih = ObpSlgSim.infieldHitRatio;
+	//with a runner on first the productive out comes after the double play in the roll
+	assertEquals(BaseOutStates.PRODUCTIVE_OUT, BaseOutStates.resolve(1, first, roll(dp), false));
+	assertEquals(BaseOutStates.PRODUCTIVE_OUT, BaseOutStates.resolve(1, first, roll(dp + po - 1e-9), false));
+	assertEquals(BaseOutStates.OUT_IN_PLAY, BaseOutStates.resolve(1, first, roll(dp + po), false));
+	assertEquals(BaseOutStates.PRODUCTIVE_OUT, BaseOutStates.resolve(1, second, roll(po - 1e-9), false));
+	assertEquals(BaseOutStates.OUT_IN_PLAY, BaseOutStates.resolve(1, second, roll(po), false));
+	//a productive out moves the runner from second to third
+	assertEquals(8 + BaseOutStates.THIRD, next(BaseOutStates.PRODUCTIVE_OUT, second));
+	assertEquals(BaseOutStates.INFIELD_SINGLE, BaseOutStates.resolve(3, second, roll(ih - 1e-9), false));
+	assertEquals(BaseOutStates.OUTFIELD_SINGLE, BaseOutStates.resolve(3, second, roll(ih), false));
+	//the runner from second stops at third on an infield single and scores on an outfield single
+	assertEquals(first + BaseOutStates.THIRD, next(BaseOutStates.INFIELD_SINGLE, second));
+	assertEquals(0, runs(BaseOutStates.INFIELD_SINGLE, second));
+	assertEquals(first, next(BaseOutStates.OUTFIELD_SINGLE, second));
+	assertEquals(1, runs(BaseOutStates.OUTFIELD_SINGLE, second));
+    }
+
+    @Test
+    public void walkOffSingles() {
+	//with the winning run on third the game ends before the infield hit roll, so nothing is drawn
+	for(int outs = 0; outs < 3; outs++) {
+	    int state = outs * 8 + BaseOutStates.THIRD + BaseOutStates.SECOND;
+	    int event = BaseOutStates.resolve(3, state, null, true);
+	    assertEquals(BaseOutStates.INFIELD_SINGLE, event);
+	    assertEquals(1, runs(event, state));
+	}
+	//without a runner on third the single still rolls
+	assertEquals(BaseOutStates.OUTFIELD_SINGLE, BaseOutStates.resolve(3, BaseOutStates.SECOND, roll(ObpSlgSim.infieldHitRatio), true));
+    }
+}
@@ -0,0 +1,67 @@
+package obpslg;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Loads a few rows of a Lahman batting file, the way a spreadsheet might save it, and checks that rows the parser can't read exactly are refused.
+ */
+public class BattingTableTest {
+
+    private static final String HEADER = "playerID,yearID,stint,teamID,lgID,G,AB,R,H,2B,3B,HR,RBI,SB,CS,BB,SO,IBB,HBP,SH,SF,GIDP";
+    private static final String AARON_1954 = "aaronha01,1954,1,ML1,NL,122,468,58,131,27,6,13,69,2,2,28,39,,3,6,4,13";
+    private static final String AARON_1955 = "aaronha01,1955,1,ML1,NL,153,602,105,189,37,9,27,106,3,1,49,61,5,3,7,4,20";
+    private static final String RUTH_1927 = "ruthba01,1927,1,NYA,AL,151,540,158,192,29,8,%s,165,7,6,137,89,,0,14,,6";
+
+    @TempDir
+    File dir;
+
+    //a batting file with a byte order mark and Windows line endings
+    private String fixture(String ruthHomers) throws IOException {
+	File file = new File(dir, "Batting.csv");
+	ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	bytes.write(new byte[]{(byte)0xEF, (byte)0xBB, (byte)0xBF});
+	for(String line : new String[]{HEADER, AARON_1954, AARON_1955, String.format(RUTH_1927, ruthHomers)}) {
+	    bytes.write((line + "\r\n").getBytes(StandardCharsets.UTF_8));
+	}
+	Files.write(file.toPath(), bytes.toByteArray());
+	return file.getPath();
+    }
+
+    @Test
+    public void loadsCareersAndSeasons() throws Exception {
+	BattingTable careers = new BattingTable(false).load(fixture("60"));
+	assertEquals(3, careers.getRows());
+	Map<String, ObpSlgSim.Player> players = careers.players(0);
+	assertEquals(2, players.size());
+	//PA, SO, outs in play, BB+HBP, 1B, 2B, 3B, HR
+	assertArrayEquals(new int[]{1174, 100, 671, 83, 201, 64, 15, 40}, players.get("aaronha01").getStatLine());
+	assertArrayEquals(new int[]{691, 89, 273, 137, 95, 29, 8, 60}, players.get("ruthba01").getStatLine());
+	assertEquals(1, careers.players(1000).size());
+
+	Map<String, ObpSlgSim.Player> seasons = new BattingTable(true).load(fixture("60")).players(0);
+	assertEquals(3, seasons.size());
+	assertTrue(seasons.containsKey("aaronha01 1954") && seasons.containsKey("aaronha01 1955") && seasons.containsKey("ruthba01 1927"), seasons.keySet().toString());
+    }
+
+    @Test
+    public void refusesStatsThatArentWholeNumbers() throws Exception {
+	for(String homers : new String[]{"-60", "60.0", "\"6,0\"", "6O"}) {
+	    String file = fixture(homers);
+	    IOException e = assertThrows(IOException.class, () -> new BattingTable(false).load(file), homers);
+	    assertTrue(e.getMessage().startsWith("Row 3 "), e.getMessage());
+	}
+    }
+}
@@ -0,0 +1,88 @@
+package obpslg;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that a run resumed from a checkpoint, even one cut off partway through a season, comes out the same as a run that never stopped.
+ */
+public class CheckpointTest {
+
+    private static final long SEED = 7;
+    private static final int SEASONS = 40;
+    private static final String SETTINGS = "engine=scalar sampler=TABLE rng=XOSHIRO";
+
+    @TempDir
+    File dir;
+
+    private static SeasonRunner runner() {
+	return new SeasonRunner(SEED, 4, OutcomeSampler.Kind.TABLE, RandomSource.Kind.XOSHIRO);
+    }
+
+    @Test
+    public void resumedRunMatchesUninterruptedRun() throws Exception {
+	ByteArrayOutputStream expected = new ByteArrayOutputStream();
+	try(ResultWriter writer = new ResultWriter.Binary(expected)) {
+	    runner().run(1, SEASONS, result -> {
+		writer.write(result);
+		return true;
+	    });
+	}
+	File file = new File(dir, "run.ckpt");
+	try(Checkpoint checkpoint = new Checkpoint(file, SEED, SETTINGS)) {
+	    assertEquals(1, checkpoint.resume(SEASONS, result -> true));
+	    runner().run(1, 15, result -> {
+		checkpoint.save(result);
+		return true;
+	    });
+	}
+	//a run killed partway through writing season 15
+	try(RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+	    raf.setLength(raf.length() - 10);
+	}
+	assertEquals(Long.valueOf(SEED), Checkpoint.savedSeed(file));
+	ByteArrayOutputStream actual = new ByteArrayOutputStream();
+	try(ResultWriter writer = new ResultWriter.Binary(actual);
+	    Checkpoint checkpoint = new Checkpoint(file, SEED, SETTINGS)) {
+	    SeasonRunner.Sink sink = result -> {
+		writer.write(result);
+		return true;
+	    };
+	    int first = checkpoint.resume(SEASONS, sink);
+	    assertEquals(15, first);
+	    runner().run(first, SEASONS, result -> {
+		checkpoint.save(result);
+		return sink.accept(result);
+	    });
+	}
+	assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+	//and everything is saved now
+	try(Checkpoint checkpoint = new Checkpoint(file, SEED, SETTINGS)) {
+	    assertEquals(0, checkpoint.resume(SEASONS, result -> true));
+	}
+    }
+
+    @Test
+    public void differentSettingsAreRejected() throws Exception {
+	File file = new File(dir, "run.ckpt");
+	try(Checkpoint checkpoint = new Checkpoint(file, SEED, SETTINGS)) {
+	    checkpoint.resume(SEASONS, result -> true);
+	    runner().run(1, 3, result -> {
+		checkpoint.save(result);
+		return true;
+	    });
+	}
+	try(Checkpoint checkpoint = new Checkpoint(file, SEED, "engine=batch sampler=TABLE rng=XOSHIRO")) {
+	    assertThrows(IOException.class, () -> checkpoint.resume(SEASONS, result -> true));
+	}
+    }
+}
@@ -0,0 +1,115 @@
+package obpslg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that seasons appended to a store by several runs are all there when it is opened again and that queries over them match the seasons,
+ * and that a run killed while appending leaves only the seasons it committed.
+ */
+public class ColumnStoreTest {
+
+    private static final int SEASONS = 50;
+
+    @TempDir
+    File dir;
+
+    private static List<ObpSlgSim.SeasonResult> seasons(int count) throws Exception {
+	final List<ObpSlgSim.SeasonResult> results = new ArrayList<ObpSlgSim.SeasonResult>();
+	new SeasonRunner(7, 2, OutcomeSampler.Kind.TABLE, RandomSource.Kind.XOSHIRO).run(1, count, result -> results.add(result));
+	return results;
+    }
+
+    private static String query(ColumnStore store, String query) {
+	ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	PrintStream out = new PrintStream(bytes);
+	store.query(query, out);
+	out.flush();
+	return bytes.toString().trim();
+    }
+
+    @Test
+    public void appendedSeasonsSurviveReopening() throws Exception {
+	List<ObpSlgSim.SeasonResult> results = seasons(SEASONS);
+	try(ColumnStore store = new ColumnStore(dir, true, true)) {
+	    for(ObpSlgSim.SeasonResult result : results.subList(0, 30)) {
+		store.write(result);
+	    }
+	}
+	try(ColumnStore store = new ColumnStore(dir, true, false)) {
+	    assertEquals(30, store.getSeasons());
+	    assertTrue(store.hasGames());
+	    for(ObpSlgSim.SeasonResult result : results.subList(30, SEASONS)) {
+		store.write(result);
+	    }
+	}
+	List<Integer> wins = new ArrayList<Integer>();
+	long highObpRuns = 0, atLeast85 = 0;
+	for(ObpSlgSim.SeasonResult result : results) {
+	    wins.add(result.highSlg.wins);
+	    highObpRuns += result.highObp.runs;
+	    atLeast85 += (result.highSlg.wins >= 85 && result.highObp.wins < 81) ? 1 : 0;
+	}
+	try(ColumnStore store = new ColumnStore(dir, false, false)) {
+	    assertEquals(SEASONS, store.getSeasons());
+	    assertEquals(Integer.toString(SEASONS), query(store, "count"));
+	    assertEquals(Collections.min(wins).toString(), query(store, "min highSlg.wins"));
+	    assertEquals(Collections.max(wins).toString(), query(store, "max highSlg.wins"));
+	    assertEquals(Long.toString(atLeast85), query(store, "count where highSlg.wins>=85,highObp.wins<81"));
+	    assertEquals(Integer.toString(SEASONS * 162), query(store, "count where game.innings>=9"));
+	    //one line per season number, each seen once
+	    assertEquals(SEASONS, query(store, "histogram season").split("\n").length);
+	    assertTrue(query(store, "histogram season").endsWith(SEASONS + "\t1"));
+	    //the games add up to the seasons
+	    StreamingStats.Metric runs = store.select("game.highObpRuns", Collections.<ColumnStore.Condition>emptyList());
+	    assertEquals(highObpRuns, Math.round(runs.getMean() * runs.getCount()));
+	    StreamingStats.Metric seasonNumbers = store.select("season", Arrays.asList(new ColumnStore.Condition("season!=0")));
+	    assertEquals(1, seasonNumbers.getMin());
+	    assertEquals(SEASONS, seasonNumbers.getMax());
+	}
+    }
+
+    @Test
+    public void killedRunLeavesOnlyCommittedSeasons() throws Exception {
+	List<ObpSlgSim.SeasonResult> results = seasons(15);
+	//never closed, like a run that is killed
+	ColumnStore killed = new ColumnStore(dir, true, false);
+	for(ObpSlgSim.SeasonResult result : results.subList(0, 10)) {
+	    killed.write(result);
+	}
+	killed.flush();
+	for(ObpSlgSim.SeasonResult result : results.subList(10, 15)) {
+	    killed.write(result);
+	}
+	try(ColumnStore store = new ColumnStore(dir, false, false)) {
+	    assertEquals(10, store.getSeasons());
+	    assertEquals("0", query(store, "count where season=0"));
+	    assertEquals("1", query(store, "min season"));
+	}
+	//the next run appends after the committed seasons
+	try(ColumnStore store = new ColumnStore(dir, true, false)) {
+	    assertEquals(10, store.getSeasons());
+	    for(ObpSlgSim.SeasonResult result : results.subList(0, 3)) {
+		store.write(result);
+	    }
+	}
+	try(ColumnStore store = new ColumnStore(dir, false, false)) {
+	    assertEquals(13, store.getSeasons());
+	    assertEquals("0", query(store, "count where season=0"));
+	    //seasons 11 to 15 were never committed, and 1 to 3 are there twice
+	    assertEquals("0", query(store, "count where season>10"));
+	    assertEquals("6", query(store, "count where season<=3"));
+	}
+    }
+}
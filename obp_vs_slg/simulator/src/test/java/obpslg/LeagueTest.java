@@ -0,0 +1,56 @@
+package obpslg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that every team gets a full, balanced schedule and that the standings only depend on the seed, not the number of threads.
+ */
+public class LeagueTest {
+
+    @Test
+    public void scheduleIsBalanced() {
+	for(int numTeams = 2; numTeams <= 30; numTeams++) {
+	    int[] home = new int[numTeams], away = new int[numTeams];
+	    for(League.Series series : League.schedule(numTeams)) {
+		assertTrue(series.away != series.home, numTeams + " teams");
+		away[series.away]++;
+		home[series.home]++;
+	    }
+	    for(int team = 0; team < numTeams; team++) {
+		String where = numTeams + " teams, team " + team;
+		assertEquals(League.SEASON_GAMES / League.SERIES_LENGTH, home[team] + away[team], where);
+		assertTrue(Math.abs(home[team] - away[team]) <= 1, where + ": " + home[team] + " home, " + away[team] + " away");
+	    }
+	}
+    }
+
+    //the standings of a season of six teams
+    private static String standings(long seed, int threads) throws Exception {
+	Map<String, ObpSlgSim.Player> profiles = new LinkedHashMap<String, ObpSlgSim.Player>();
+	for(int i = 0; i < 3; i++) {
+	    profiles.put("Collins " + i, ObpSlgSim.eddieCollins());
+	    profiles.put("Devers " + i, ObpSlgSim.rafaelDevers());
+	}
+	League league = new League(profiles, OutcomeSampler.Kind.TABLE);
+	league.play(seed, RandomSource.Kind.XOSHIRO, threads);
+	ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	league.printStandings(new PrintStream(bytes, true, "UTF-8"));
+	return bytes.toString("UTF-8");
+    }
+
+    @Test
+    public void standingsDontDependOnThreads() throws Exception {
+	String serial = standings(5, 1);
+	assertEquals(serial, standings(5, 4));
+	assertNotEquals(serial, standings(6, 1), "a different seed plays a different season");
+    }
+}
@@ -0,0 +1,51 @@
+package obpslg;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the Markov chain's exact answers against what a seeded simulation estimates: each exact value has to fall inside the simulation's 95% confidence interval.
+ */
+public class MarkovEngineTest {
+
+    private static final long SEED = 3;
+
+    private static void assertWithin(double exact, StreamingStats.Metric simulated, double scale, String what) {
+	double mean = simulated.getMean() / scale, halfWidth = simulated.getHalfWidth() / scale;
+	assertTrue(Math.abs(mean - exact) <= halfWidth, what + ": exact " + exact + ", simulated " + mean + " +/- " + halfWidth);
+    }
+
+    @Test
+    public void expectedRunsPerInning() {
+	RandomSource r = RandomSource.Kind.XOSHIRO.create(SEED);
+	ObpSlgSim.GameState game = new ObpSlgSim.GameState();
+	for(ObpSlgSim.Player player : new ObpSlgSim.Player[]{ObpSlgSim.eddieCollins(), ObpSlgSim.rafaelDevers()}) {
+	    ObpSlgSim.Team team = ObpSlgSim.buildTeam(player, "Team");
+	    MarkovEngine.Lineup lineup = new MarkovEngine.Lineup(team.lineup);
+	    StreamingStats.Metric runs = new StreamingStats.Metric();
+	    for(int i = 0; i < 200000; i++) {
+		ObpSlgSim.simInning(0, team, false, 0, r, null, game);
+		runs.add(game.runsScored);
+	    }
+	    assertWithin(lineup.expectedInningRuns(0), runs, 1, "runs per inning from the top of the order");
+	}
+    }
+
+    @Test
+    public void headToHeadWinProbability() throws Exception {
+	MarkovEngine.Lineup highObp = new MarkovEngine.Lineup(ObpSlgSim.buildTeam(ObpSlgSim.eddieCollins(), "High OBP").lineup);
+	MarkovEngine.Lineup highSlg = new MarkovEngine.Lineup(ObpSlgSim.buildTeam(ObpSlgSim.rafaelDevers(), "High SLG").lineup);
+	MarkovEngine.GameOdds obpHome = MarkovEngine.game(highSlg, highObp), obpAway = MarkovEngine.game(highObp, highSlg);
+	//every season is 81 games at home and 81 on the road
+	double exact = (obpHome.homeWin + obpAway.awayWin) / 2;
+	StreamingStats stats = new StreamingStats();
+	new SeasonRunner(SEED, 2, OutcomeSampler.Kind.TABLE, RandomSource.Kind.XOSHIRO).run(1, 1000, result -> {
+	    stats.add(result);
+	    return true;
+	});
+	assertWithin(exact, stats.highObp.wins, 162, "High OBP winning percentage");
+	assertWithin(81 * (obpHome.homeRuns + obpAway.awayRuns), stats.highObp.runs, 1, "High OBP runs per season");
+	assertWithin(81 * (obpHome.awayRuns + obpAway.homeRuns), stats.highSlg.runs, 1, "High SLG runs per season");
+    }
+}
@@ -0,0 +1,88 @@
+package obpslg;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that matched seasons line up the way MatchedStreams says, come out the same with any number of threads,
+ * and leave the mean gap between the teams where independent seasons put it while narrowing its confidence interval.
+ */
+public class MatchedStreamsTest {
+
+    private static final long SEED = 7;
+
+    //the seasons' binary results, summarized into stats
+    private static byte[] run(MatchedStreams.Mode mode, int threads, int seasons, StreamingStats stats) throws Exception {
+	SeasonRunner runner = new SeasonRunner(SEED, threads, OutcomeSampler.Kind.TABLE, RandomSource.Kind.XOSHIRO);
+	if(mode != null) {
+	    runner.usePairing(mode);
+	    stats.setGroupSize(mode.groupSize);
+	}
+	ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	try(ResultWriter writer = new ResultWriter.Binary(bytes)) {
+	    runner.run(1, seasons, result -> {
+		writer.write(result);
+		stats.add(result);
+		return true;
+	    });
+	}
+	return bytes.toByteArray();
+    }
+
+    @Test
+    public void commonSeasonsSwapTheTeamsStreams() {
+	MatchedStreams first = new MatchedStreams(MatchedStreams.Mode.COMMON, SEED, 1), second = new MatchedStreams(MatchedStreams.Mode.COMMON, SEED, 2);
+	first.startGame(5, true, null);
+	second.startGame(5, true, null);
+	//the away team's first plate appearance in the first season against the home team's in the second
+	long away = first.nextLong();
+	second.inningOver(0);
+	assertEquals(away, second.nextLong());
+	//and each plate appearance starts its own numbers, whatever the last one drew
+	first.nextLong();
+	first.plateAppearance(0, 0, 0, 0, 0, false);
+	second.nextLong();
+	second.nextLong();
+	second.plateAppearance(0, 0, 0, 0, 0, false);
+	assertEquals(first.nextLong(), second.nextLong());
+    }
+
+    @Test
+    public void antitheticSeasonsComplementTheNumbers() {
+	MatchedStreams first = new MatchedStreams(MatchedStreams.Mode.ANTITHETIC, SEED, 3), second = new MatchedStreams(MatchedStreams.Mode.ANTITHETIC, SEED, 4);
+	first.startGame(1, false, null);
+	second.startGame(1, false, null);
+	for(int i = 0; i < 10; i++) {
+	    assertEquals(~first.nextLong(), second.nextLong());
+	}
+    }
+
+    @Test
+    public void seasonsDontDependOnThreads() throws Exception {
+	for(MatchedStreams.Mode mode : MatchedStreams.Mode.values()) {
+	    byte[] one = run(mode, 1, 24, new StreamingStats()), several = run(mode, 4, 24, new StreamingStats());
+	    assertArrayEquals(one, several, mode.toString());
+	}
+    }
+
+    @Test
+    public void meanGapIsUnchangedAndMorePrecise() throws Exception {
+	int seasons = 400;
+	StreamingStats independent = new StreamingStats();
+	run(null, 4, seasons, independent);
+	for(MatchedStreams.Mode mode : MatchedStreams.Mode.values()) {
+	    StreamingStats matched = new StreamingStats();
+	    run(mode, 4, seasons, matched);
+	    double difference = Math.abs(matched.getWpctGap() - independent.getWpctGap());
+	    //two combined 95% half-widths is about four standard errors
+	    double allowed = 2 * Math.hypot(matched.getWpctGapHalfWidth(), independent.getWpctGapHalfWidth());
+	    assertTrue(difference < allowed, mode + " moved the gap by " + difference + ", more than " + allowed);
+	    assertTrue(matched.getVarianceReduction() > 1, mode + " made the gap less precise: " + matched.getVarianceReduction());
+	}
+    }
+}
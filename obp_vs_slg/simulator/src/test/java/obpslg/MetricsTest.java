@@ -0,0 +1,60 @@
+package obpslg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the counters add up across runs on new pools of threads, that both engines fill in the histograms, and that ended threads are let go.
+ */
+public class MetricsTest {
+
+    private static long sum(long[] counts) {
+	long total = 0;
+	for(long count : counts) {
+	    total += count;
+	}
+	return total;
+    }
+
+    private static void assertCounted(Metrics.Snapshot before, Metrics.Snapshot after, int seasons) {
+	long games = after.games - before.games, innings = 0;
+	assertEquals((long)League.SEASON_GAMES * seasons, games);
+	long[] histogram = after.getInningsHistogram(), earlier = before.getInningsHistogram();
+	for(int n = 0; n <= Metrics.MAX_INNINGS; n++) {
+	    innings += n * (histogram[n] - earlier[n]);
+	}
+	assertEquals(games, sum(histogram) - sum(earlier));
+	assertEquals(after.innings - before.innings, innings);
+	//every extra-inning game plays at least one extra half-inning
+	long extraHalves = sum(after.getExtraInningRunsHistogram()) - sum(before.getExtraInningRunsHistogram());
+	assertTrue(extraHalves >= after.extraInningGames - before.extraInningGames && after.extraInningGames > before.extraInningGames, extraHalves + " extra half-innings");
+    }
+
+    @Test
+    public void endedThreadsAreFoldedIn() throws Exception {
+	int live = Metrics.liveThreads();
+	Metrics.Snapshot before = Metrics.read();
+	for(int run = 0; run < 20; run++) {
+	    new SeasonRunner(run, 2, OutcomeSampler.Kind.TABLE, RandomSource.Kind.XOSHIRO).run(1, 2, result -> true);
+	}
+	assertCounted(before, Metrics.read(), 40);
+	//the pools' threads end on their own shortly after they're shut down
+	long deadline = System.currentTimeMillis() + 10000;
+	while(Metrics.liveThreads() > live && System.currentTimeMillis() < deadline) {
+	    Thread.sleep(10);
+	}
+	assertTrue(Metrics.liveThreads() <= live, Metrics.liveThreads() + " threads still counted apart");
+	assertCounted(before, Metrics.read(), 40);
+    }
+
+    @Test
+    public void batchEngineFillsTheHistograms() throws Exception {
+	Metrics.Snapshot before = Metrics.read();
+	SeasonRunner runner = new SeasonRunner(1, 1, OutcomeSampler.Kind.TABLE, RandomSource.Kind.XOSHIRO);
+	runner.useBatchEngine(8);
+	runner.run(1, 8, result -> true);
+	assertCounted(before, Metrics.read(), 8);
+    }
+}
@@ -0,0 +1,80 @@
+package obpslg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that every sampler draws outcomes with the player's probabilities, and that the cumulative and table samplers turn the same random numbers
+ * into the same outcomes as the threshold scan Player.getPA() originally did.
+ */
+public class OutcomeSamplerTest {
+
+    private static final long SEED = 11;
+    private static final int DRAWS = 1000000;
+
+    //the player's cumulative outcome thresholds, built the way the Player constructor builds them
+    private static int[] thresholds(ObpSlgSim.Player player) {
+	int[] line = player.getStatLine(), thresholds = new int[7];
+	for(int i = 0; i < 7; i++) {
+	    thresholds[i] = line[i+1] + (i == 0 ? 0 : thresholds[i-1]);
+	}
+	return thresholds;
+    }
+
+    //the original getPA(): a draw below the number of plate appearances, then the first threshold it falls under
+    private static int scan(int[] thresholds, RandomSource r) {
+	int outcome = r.nextInt(thresholds[thresholds.length - 1]);
+	for(int i = 0; i < thresholds.length; i++) {
+	    if(outcome < thresholds[i]) {
+		return i;
+	    }
+	}
+	return -1;
+    }
+
+    @Test
+    public void everySamplerMatchesTheOutcomeProbabilities() {
+	for(ObpSlgSim.Player player : new ObpSlgSim.Player[]{ObpSlgSim.eddieCollins(), ObpSlgSim.rafaelDevers()}) {
+	    double[] probs = player.getOutcomeProbabilities();
+	    for(OutcomeSampler.Kind kind : OutcomeSampler.Kind.values()) {
+		OutcomeSampler sampler = kind.build(thresholds(player));
+		RandomSource r = RandomSource.Kind.XOSHIRO.create(SEED);
+		long[] counts = new long[7];
+		for(int i = 0; i < DRAWS; i++) {
+		    counts[sampler.sample(r)]++;
+		}
+		for(int i = 0; i < 7; i++) {
+		    //within 5 standard deviations of the expected count, which a correct sampler misses about once in 3 million tries
+		    double expected = probs[i] * DRAWS, sd = Math.sqrt(DRAWS * probs[i] * (1 - probs[i]));
+		    assertTrue(Math.abs(counts[i] - expected) <= 5 * sd + 1, kind + " outcome " + i + ": " + counts[i] + " draws, expected " + expected);
+		}
+	    }
+	}
+    }
+
+    @Test
+    public void cumulativeAndTableDrawTheOriginalSequence() {
+	for(ObpSlgSim.Player player : new ObpSlgSim.Player[]{ObpSlgSim.eddieCollins(), ObpSlgSim.rafaelDevers()}) {
+	    int[] thresholds = thresholds(player);
+	    for(OutcomeSampler.Kind kind : new OutcomeSampler.Kind[]{OutcomeSampler.Kind.CUMULATIVE, OutcomeSampler.Kind.TABLE}) {
+		OutcomeSampler sampler = kind.build(thresholds);
+		RandomSource r = RandomSource.Kind.JDK.create(SEED), original = RandomSource.Kind.JDK.create(SEED);
+		for(int i = 0; i < DRAWS; i++) {
+		    assertEquals(scan(thresholds, original), sampler.sample(r), kind + " draw " + i);
+		}
+	    }
+	}
+    }
+
+    @Test
+    public void playersDrawThroughTheirSampler() {
+	ObpSlgSim.Player player = ObpSlgSim.rafaelDevers();
+	int[] thresholds = thresholds(player);
+	RandomSource r = RandomSource.Kind.XOSHIRO.create(SEED), original = RandomSource.Kind.XOSHIRO.create(SEED);
+	for(int i = 0; i < 10000; i++) {
+	    assertEquals(scan(thresholds, original), player.getPA(r));
+	}
+    }
+}
@@ -0,0 +1,42 @@
+package obpslg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the text formats don't depend on the default locale and that names are escaped in JSON.
+ */
+public class ResultWriterTest {
+
+    @Test
+    public void ratesUseADecimalPointInAnyLocale() {
+	Locale before = Locale.getDefault();
+	try {
+	    Locale.setDefault(Locale.GERMANY);
+	    assertEquals(".312", ResultWriter.rate(.312));
+	    assertEquals("1.012", ResultWriter.rate(1.012));
+	}
+	finally {
+	    Locale.setDefault(before);
+	}
+    }
+
+    @Test
+    public void jsonNamesAreEscaped() throws Exception {
+	assertEquals("\"a \\\"b\\\" \\\\ c\\u0009\"", ResultWriter.jsonString("a \"b\" \\ c\t"));
+	ObpSlgSim.TeamSeason quoted = new ObpSlgSim.TeamSeason("Joe \"Shoeless\" Jackson", 90, 72, 800, .25, .33, .45);
+	ObpSlgSim.TeamSeason plain = new ObpSlgSim.TeamSeason("High SLG", 72, 90, 700, .25, .33, .45);
+	ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	try(ResultWriter writer = new ResultWriter.JsonLines(bytes)) {
+	    writer.write(new ObpSlgSim.SeasonResult(1, quoted, plain));
+	}
+	String line = new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+	assertTrue(line.contains("{\"name\":\"Joe \\\"Shoeless\\\" Jackson\",\"wins\":90"), line);
+    }
+}
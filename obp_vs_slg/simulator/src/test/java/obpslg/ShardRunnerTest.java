@@ -0,0 +1,93 @@
+package obpslg;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that seasons simulated in worker processes come out the same as in one process, even when a worker fails,
+ * and that the work directory is cleaned up however the run ends.
+ */
+public class ShardRunnerTest {
+
+    private static final long SEED = 7;
+    private static final int SEASONS = 30;
+    private static final List<String> SETTINGS = Arrays.asList("--seed", Long.toString(SEED), "--sampler", "TABLE", "--rng", "XOSHIRO", "--engine", "scalar", "--threads", "1");
+
+    @TempDir
+    File dir;
+
+    //a runner whose workers fail the first time for the shard starting with season failing, or every time if always
+    private ShardRunner runner(final int failing, final boolean always) {
+	return new ShardRunner(dir, 2, 7, SETTINGS) {
+	    @Override
+	    List<String> command(int from, int to, File partial, int attempt) {
+		List<String> command = super.command(from, to, partial, attempt);
+		if(from == failing && (always || attempt == 1)) {
+		    command.set(command.indexOf(ObpSlgSim.class.getName()), "obpslg.NoSuchClass");
+		}
+		return command;
+	    }
+	};
+    }
+
+    private static byte[] singleProcess() throws Exception {
+	ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	try(ResultWriter writer = new ResultWriter.Binary(bytes)) {
+	    new SeasonRunner(SEED, 2, OutcomeSampler.Kind.TABLE, RandomSource.Kind.XOSHIRO).run(1, SEASONS, result -> {
+		writer.write(result);
+		return true;
+	    });
+	}
+	return bytes.toByteArray();
+    }
+
+    private static byte[] sharded(ShardRunner runner) throws Exception {
+	ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	try(ResultWriter writer = new ResultWriter.Binary(bytes)) {
+	    assertEquals(SEASONS, runner.run(1, SEASONS, result -> {
+		writer.write(result);
+		return true;
+	    }));
+	}
+	return bytes.toByteArray();
+    }
+
+    @Test
+    public void shardsMergeLikeOneProcess() throws Exception {
+	assertArrayEquals(singleProcess(), sharded(runner(0, false)));
+	assertEquals(0, dir.list().length);
+    }
+
+    @Test
+    public void failedShardIsRunAgain() throws Exception {
+	assertArrayEquals(singleProcess(), sharded(runner(8, false)));
+	assertEquals(0, dir.list().length);
+    }
+
+    @Test
+    public void shardThatAlwaysFailsStopsTheRun() {
+	ExecutionException e = assertThrows(ExecutionException.class, () -> sharded(runner(15, true)));
+	assertEquals(IOException.class, e.getCause().getClass());
+	//only the failed shard's log is left
+	assertArrayEquals(new String[]{"shard-15-21.failed.log"}, dir.list());
+    }
+
+    @Test
+    public void stoppingEarlyLeavesNothingBehind() throws Exception {
+	final AtomicInteger seen = new AtomicInteger();
+	assertEquals(10, runner(0, false).run(1, SEASONS, result -> seen.incrementAndGet() < 10));
+	assertEquals(0, dir.list().length);
+    }
+}
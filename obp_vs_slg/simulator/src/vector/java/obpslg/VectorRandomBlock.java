@@ -0,0 +1,49 @@
+package obpslg;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * BatchSimulator.RandomBlock with the incubating Vector API, advancing as many lanes at once as the CPU's widest vectors hold.<br>
+ * Only compiled with the vector profile (mvn -Pvector package, JDK 17 or later), and only used when the JVM is started with --add-modules jdk.incubator.vector.
+ * It gives exactly the same numbers as the plain loop.
+ */
+public class VectorRandomBlock implements BatchSimulator.RandomBlock {
+
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    @Override
+    public void next(long[] s0, long[] s1, long[] s2, long[] s3, long[] out, int lanes) {
+	int i = 0;
+	for(; i < SPECIES.loopBound(lanes); i += SPECIES.length()) {
+	    LongVector v0 = LongVector.fromArray(SPECIES, s0, i);
+	    LongVector v1 = LongVector.fromArray(SPECIES, s1, i);
+	    LongVector v2 = LongVector.fromArray(SPECIES, s2, i);
+	    LongVector v3 = LongVector.fromArray(SPECIES, s3, i);
+	    v1.mul(5).lanewise(VectorOperators.ROL, 7).mul(9).intoArray(out, i);
+	    LongVector t = v1.lanewise(VectorOperators.LSHL, 17);
+	    v2 = v2.lanewise(VectorOperators.XOR, v0);
+	    v3 = v3.lanewise(VectorOperators.XOR, v1);
+	    v1 = v1.lanewise(VectorOperators.XOR, v2);
+	    v0 = v0.lanewise(VectorOperators.XOR, v3);
+	    v2 = v2.lanewise(VectorOperators.XOR, t);
+	    v3 = v3.lanewise(VectorOperators.ROL, 45);
+	    v0.intoArray(s0, i);
+	    v1.intoArray(s1, i);
+	    v2.intoArray(s2, i);
+	    v3.intoArray(s3, i);
+	}
+	//the lanes that don't fill a whole vector
+	for(; i < lanes; i++) {
+	    out[i] = Long.rotateLeft(s1[i] * 5, 7) * 9;
+	    long t = s1[i] << 17;
+	    s2[i] ^= s0[i];
+	    s3[i] ^= s1[i];
+	    s1[i] ^= s2[i];
+	    s0[i] ^= s3[i];
+	    s2[i] ^= t;
+	    s3[i] = Long.rotateLeft(s3[i], 45);
+	}
+    }
+}